@@ -0,0 +1,78 @@
+package aiproj.slider;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BenchmarkPositions class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * The positions the benchmarks run from, in Notation, by name. Each size
+ * has its starting board with blocked squares, and middle game positions
+ * taken from self-play games. Names are used as JMH parameters, so results
+ * stay comparable as long as a name's position never changes; add new
+ * positions under new names.
+ *
+ * See comments.txt for details
+ *
+ */
+final class BenchmarkPositions {
+
+    private static final Map<String, String> POSITIONS = new LinkedHashMap<String, String>();
+
+    static {
+        POSITIONS.put("5-start", "H4/H4/H1B2/H4/1VVVV H");
+        POSITIONS.put("5-middle-a", "5/1V2H/2H2/H1VB1/1V3 H");
+        POSITIONS.put("5-middle-b", "3H1/5/VHB2/1V3/2H1V H");
+        POSITIONS.put("6-start", "H5/H5/H2B2/H1B3/H5/1VVVVV H");
+        POSITIONS.put("6-middle-a", "H5/6/H1V3/6/5H/V3V1 H");
+        POSITIONS.put("6-middle-b", "6/H5/1V2H1/2B3/6/HV2VV H");
+        POSITIONS.put("7-start", "H6/H6/H6/H2B3/H6/H6/1VVVVVV H");
+        POSITIONS.put("7-middle-a", "H6/5B1/H6/H2B3/H6/H1V4/2V1V1V H");
+        POSITIONS.put("7-middle-b", "7/H6/7/H6/7/HV4V/1V3V1 H");
+    }
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     *  A position by name
+     * @param name the position's name
+     * @return the position, in Notation
+     * @throws IllegalArgumentException if there's no position of that name
+     */
+    static String get(String name) {
+        String position = POSITIONS.get(name);
+        if (position == null) {
+            throw new IllegalArgumentException("no benchmark position " + name);
+        }
+        return position;
+    }
+
+    /**
+     *  A position as a player's Board
+     * @param name the position's name
+     * @return the board, with its hash key set for the player to move
+     */
+    static Board board(String name) {
+        return Notation.parseBoard(get(name));
+    }
+
+    /**
+     *  The player to move in a position
+     * @param name the position's name
+     * @return the player's cell type
+     */
+    static String toMove(String name) {
+        return Notation.sideToMove(get(name)) == BitBoard.H ? Tile.PLAYER_H : Tile.PLAYER_V;
+    }
+
+    /**
+     *  A position as text, the way the Referee gives it to players
+     * @param name the position's name
+     * @return the board as text
+     */
+    static String text(String name) {
+        return Notation.parse(get(name)).toString();
+    }
+}
@@ -0,0 +1,34 @@
+package aiproj.slider;
+
+/**
+ * BenchmarkWeights class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Fixed weights for the benchmarks, a copy of weights.txt when they were
+ * added, so that numbers stay comparable as weights.txt is retrained and
+ * don't depend on the directory the benchmarks run in.
+ *
+ * See comments.txt for details
+ *
+ */
+final class BenchmarkWeights {
+
+    private static final double[] WEIGHTS = {
+            -14.464938674658669, 10.467277184085638, 10.987390194597886, -9.543125176143027,
+            -16.049064794095344, -12.040679071462678, -16.498633799889532, -12.558892816736398,
+            -16.850081874837123, -13.590569821714356, -16.376217910067993, -13.36644641218742,
+            -15.902386071046026, -0.6144638849485268, -15.429417866273747, 14.753215100548104,
+            -15.563245201354396,
+    };
+
+    private BenchmarkWeights() {
+    }
+
+    /**
+     *
+     * @return a copy of the weights
+     */
+    static double[] get() {
+        return WEIGHTS.clone();
+    }
+}
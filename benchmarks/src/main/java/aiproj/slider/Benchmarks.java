@@ -0,0 +1,45 @@
+package aiproj.slider;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Runs the benchmarks with the gc profiler, so that every result has its
+ * allocation rate (gc.alloc.rate.norm, bytes per operation) next to its
+ * throughput. Run it with
+ *
+ *   java -cp benchmarks/target/benchmarks.jar aiproj.slider.Benchmarks [regexp] [results.json]
+ *
+ * where the optional regexp picks benchmarks by name, for example
+ * BoardBenchmark or SearchBenchmark.search, and results are also written as
+ * JSON for tracking over time.
+ *
+ * See comments.txt for details
+ *
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     *  Runs the benchmarks
+     * @param args optional regexp of benchmarks to run and JSON results file
+     */
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(args.length > 0 ? args[0] : "aiproj\\.slider\\..*Benchmark");
+        options.addProfiler(GCProfiler.class);
+        if (args.length > 1) {
+            options.resultFormat(ResultFormatType.JSON);
+            options.result(args[1]);
+        }
+        new Runner(options.build()).run();
+    }
+}
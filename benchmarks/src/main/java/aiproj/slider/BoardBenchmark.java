@@ -0,0 +1,126 @@
+package aiproj.slider;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BoardBenchmark class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Throughput of the player's board operations: copying a board, listing
+ * and generating moves, reading the board the Referee sends, and
+ * evaluating a position, from each benchmark position. The BitBoard
+ * benchmarks time the same operations on the board the Search runs on,
+ * along with making and unmaking every legal move.
+ *
+ * See comments.txt for details
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"5-start", "5-middle-a", "6-start", "6-middle-a", "7-start", "7-middle-a"})
+    public String position;
+
+    private Board board;
+    private String player;
+    private String text;
+    private int length;
+    private Evaluator evaluator;
+    private double[] features;
+    private int[] moves;
+
+    private BitBoard bits;
+    private int side;
+    private int[] bitMoves;
+    private int bitMoveCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = BenchmarkPositions.board(position);
+        player = BenchmarkPositions.toMove(position);
+        text = BenchmarkPositions.text(position);
+        length = board.getLength();
+        evaluator = new Evaluator(BenchmarkWeights.get());
+        features = new double[Evaluator.NUM_FEATURES];
+        moves = new int[3 * length * length];
+
+        bits = board.getBitBoard().copyBoard();
+        side = BitBoard.player(player);
+        bitMoves = new int[3 * length * length];
+        bitMoveCount = bits.generateMoves(side, bitMoves, 0);
+    }
+
+    @Benchmark
+    public Board copyBoard() {
+        return board.copyBoard();
+    }
+
+    @Benchmark
+    public ArrayList<Move> getAllMoves() {
+        return board.getAllMoves(player);
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        int count = board.generateMoves(player, Board.FORWARD_MOVES, moves, 0);
+        return count + board.generateMoves(player, Board.SIDEWAYS_MOVES, moves, count);
+    }
+
+    @Benchmark
+    public Board readBoard() {
+        return Input.readBoard(length, text);
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return evaluator.evaluate(board, player);
+    }
+
+    @Benchmark
+    public void features(Blackhole blackhole) {
+        Evaluator.features(board, player, features);
+        blackhole.consume(features);
+    }
+
+    @Benchmark
+    public int generateBitBoardMoves() {
+        int count = bits.generateMoves(side, Board.FORWARD_MOVES, moves, 0);
+        return count + bits.generateMoves(side, Board.SIDEWAYS_MOVES, moves, count);
+    }
+
+    @Benchmark
+    public long makeBitBoardMoves() {
+        long keys = 0;
+        for (int i = 0; i < bitMoveCount; i++) {
+            bits.makeMove(side, bitMoves[i]);
+            keys ^= bits.getHashKey();
+            bits.unmakeMove(side, bitMoves[i]);
+        }
+        return keys;
+    }
+
+    @Benchmark
+    public double evaluateBitBoard() {
+        return evaluator.evaluate(bits, side);
+    }
+}
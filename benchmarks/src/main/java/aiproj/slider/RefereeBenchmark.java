@@ -0,0 +1,67 @@
+package aiproj.slider;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RefereeBenchmark class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Throughput of complete games refereed by a GameRunner, on the Referee's
+ * own board or the fast one, between two TDLeafDaveHugo players searching
+ * to a fixed depth. The starting board comes from a fixed seed, so every
+ * game is the same. Players look for book.bin and tablebases/ in the
+ * working directory as usual, so run from a directory without them to
+ * benchmark search alone.
+ *
+ * See comments.txt for details
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefereeBenchmark {
+
+    private static final int TABLE_BITS = 16;
+    private static final long SEED = 1;
+
+    @Param({"5", "6", "7"})
+    public int dimension;
+
+    @Param({"2"})
+    public int depth;
+
+    @Param({"false", "true"})
+    public boolean fast;
+
+    @Benchmark
+    public GameResult game() {
+        GameRunner runner = new GameRunner();
+        runner.setFast(fast);
+        return runner.play(player(), player(), dimension, SEED);
+    }
+
+    /**
+     * @return a player searching to the benchmark's depth
+     */
+    private SliderPlayer player() {
+        TDLeafDaveHugo player = new TDLeafDaveHugo(SearchDriver.UNLIMITED, 1);
+        player.setWeights(BenchmarkWeights.get());
+        player.setMaxDepth(depth);
+        player.setTableBits(TABLE_BITS);
+        return player;
+    }
+}
@@ -0,0 +1,84 @@
+package aiproj.slider;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SearchBenchmark class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Throughput of complete fixed depth searches, with iterative deepening as
+ * the player searches, from each benchmark position. The transposition
+ * table is cleared before every search so that each one does the same
+ * work, and the nodes searched are reported alongside, so a change in
+ * speed can be told apart from a change in the size of the tree.
+ *
+ * See comments.txt for details
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int TABLE_BITS = 20;
+
+    @Param({"5-start", "5-middle-a", "5-middle-b", "6-start", "6-middle-a", "6-middle-b",
+            "7-start", "7-middle-a", "7-middle-b"})
+    public String position;
+
+    @Param({"6"})
+    public int depth;
+
+    private Board board;
+    private String player;
+    private TranspositionTable table;
+    private Search search;
+    private SearchDriver driver;
+
+    /**
+     * Nodes searched, reported per search and per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = BenchmarkPositions.board(position);
+        player = BenchmarkPositions.toMove(position);
+        table = new TranspositionTable(TABLE_BITS);
+        search = new Search(new Evaluator(BenchmarkWeights.get()), table);
+        driver = new SearchDriver(search, SearchDriver.UNLIMITED, depth);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @Benchmark
+    public int search(Nodes nodes) {
+        int move = driver.findMove(board, player).getBestMove();
+        nodes.nodes += search.getNodes();
+        return move;
+    }
+}
@@ -0,0 +1,569 @@
+package aiproj.slider;
+
+import java.util.ArrayList;
+
+/**
+ * BitBoard class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Stores a board of up to Board.MAX_SIZE x Board.MAX_SIZE as three 64 bit
+ * masks (H pieces, V pieces and blocked squares). Square (x, y) is bit
+ * y * 8 + x, so a row is always 8 bits wide and the unused eighth column
+ * stops pieces wrapping around the edge when the masks are shifted.
+ *
+ * Legal moves are found with shifts and masks, and are written out as packed
+ * moves (see PackedMove) so that generating them allocates nothing.
+ *
+ * This is the board the Search runs on. makeMove keeps a Zobrist key up to
+ * date once rehash has set it, and the counts behind the evaluation
+ * features (see Evaluator) are popcounts of the masks, so nothing needs
+ * updating as pieces move.
+ *
+ * See comments.txt for details
+ *
+ */
+public class BitBoard implements SliderBoard {
+
+    // Player indices, as used by the Referee
+    public static final int H = 0, V = 1;
+
+    // Width of a row in bits
+    public static final int STRIDE = 8;
+
+    // Square offsets for each direction, indexed by Move.Direction ordinal
+    private static final int[] DELTAS = {STRIDE, -STRIDE, -1, 1};
+    private static final Move.Direction[] DIRECTIONS = Move.Direction.values();
+
+    // Masks of the squares in each column and each row
+    private static final long[] COLUMNS = new long[STRIDE];
+    private static final long[] ROWS = new long[STRIDE];
+
+    static {
+        for (int i = 0; i < STRIDE; i++) {
+            COLUMNS[i] = 0x0101010101010101L << i;
+            ROWS[i] = 0xFFL << (i * STRIDE);
+        }
+    }
+
+    // raceResult for a position that isn't a race
+    public static final int NOT_A_RACE = 0;
+
+    private final int length;
+    private final long boardMask;
+    private final long hExitMask;
+    private final long vExitMask;
+
+    private long hPieces;
+    private long vPieces;
+    private long blocked;
+
+    // Zobrist key of the position, including whose turn it is
+    private long hashKey;
+
+    /**
+     * Constructor for an empty board
+     * @param N the length and width of the board in tiles
+     */
+    public BitBoard(int N) {
+        if (N < 1 || N > Board.MAX_SIZE) {
+            throw new IllegalArgumentException("unsupported board size: " + N);
+        }
+        length = N;
+
+        long row = (1L << N) - 1;
+        long mask = 0;
+        long lastCol = 0;
+        for (int y = 0; y < N; y++) {
+            mask |= row << (y * STRIDE);
+            lastCol |= 1L << square(N - 1, y);
+        }
+        boardMask = mask;
+        hExitMask = lastCol;
+        vExitMask = row << ((N - 1) * STRIDE);
+    }
+
+    /**
+     * Constructor for a filled board
+     * @param N the length and width of the board in tiles
+     * @param hPieces mask of H pieces
+     * @param vPieces mask of V pieces
+     * @param blocked mask of blocked squares
+     */
+    public BitBoard(int N, long hPieces, long vPieces, long blocked) {
+        this(N);
+        this.hPieces = hPieces & boardMask;
+        this.vPieces = vPieces & boardMask;
+        this.blocked = blocked & boardMask;
+    }
+
+    /**
+     * Constructor copying the position of another board
+     * @param board the board
+     */
+    public BitBoard(SliderBoard board) {
+        this(board.getLength());
+        for (int y = 0; y < length; y++) {
+            for (int x = 0; x < length; x++) {
+                setCellType(x, y, board.getCellType(x, y));
+            }
+        }
+    }
+
+    /**
+     *  Creates a copy of a board
+     * @return the new board
+     */
+    public BitBoard copyBoard() {
+        BitBoard copy = new BitBoard(length, hPieces, vPieces, blocked);
+        copy.hashKey = hashKey;
+        return copy;
+    }
+
+    /**
+     *  The square index of position x, y
+     * @param x x position
+     * @param y y position
+     * @return the square index
+     */
+    public static int square(int x, int y) {
+        return y * STRIDE + x;
+    }
+
+    /**
+     * @param square a square index
+     * @return the x position of the square
+     */
+    public static int squareX(int square) {
+        return square & (STRIDE - 1);
+    }
+
+    /**
+     * @param square a square index
+     * @return the y position of the square
+     */
+    public static int squareY(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     *
+     * @return length of the board
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return mask of every square on the board
+     */
+    public long getBoardMask() {
+        return boardMask;
+    }
+
+    /**
+     * @return mask of H pieces
+     */
+    public long getHPieces() {
+        return hPieces;
+    }
+
+    /**
+     * @return mask of V pieces
+     */
+    public long getVPieces() {
+        return vPieces;
+    }
+
+    /**
+     * @return mask of blocked squares
+     */
+    public long getBlocked() {
+        return blocked;
+    }
+
+    /**
+     * @return mask of empty squares
+     */
+    public long getEmpty() {
+        return boardMask & ~(hPieces | vPieces | blocked);
+    }
+
+    /**
+     * @param player the player (H or V)
+     * @return mask of the player's pieces
+     */
+    public long getPieces(int player) {
+        return player == H ? hPieces : vPieces;
+    }
+
+    /**
+     * @param player the player (H or V)
+     * @return the number of pieces the player has left
+     */
+    public int pieceCount(int player) {
+        return Long.bitCount(getPieces(player));
+    }
+
+    /**
+     *  Converts a cell type to a player index
+     * @param cell_type the player's cell type
+     * @return H or V, or -1 if it isn't a player's cell type
+     */
+    public static int player(String cell_type) {
+        if (cell_type.equals(Tile.PLAYER_H)) {
+            return H;
+        }
+        else if (cell_type.equals(Tile.PLAYER_V)) {
+            return V;
+        }
+        return -1;
+    }
+
+    /**
+     *  get the cell type at position x, y
+     * @param x x position
+     * @param y y position
+     * @return the cell type
+     */
+    public String getCellType(int x, int y) {
+        long bit = 1L << square(x, y);
+        if ((hPieces & bit) != 0) {
+            return Tile.PLAYER_H;
+        }
+        if ((vPieces & bit) != 0) {
+            return Tile.PLAYER_V;
+        }
+        if ((blocked & bit) != 0) {
+            return Tile.BLOCKED;
+        }
+        return Tile.EMPTY;
+    }
+
+    /**
+     *  Set the cell type at position x, y
+     * @param x x position
+     * @param y y position
+     * @param cell_type the cell type to change to
+     */
+    public void setCellType(int x, int y, String cell_type) {
+        long bit = 1L << square(x, y);
+        hPieces &= ~bit;
+        vPieces &= ~bit;
+        blocked &= ~bit;
+        if (cell_type.equals(Tile.PLAYER_H)) {
+            hPieces |= bit;
+        }
+        else if (cell_type.equals(Tile.PLAYER_V)) {
+            vPieces |= bit;
+        }
+        else if (cell_type.equals(Tile.BLOCKED)) {
+            blocked |= bit;
+        }
+    }
+
+    /**
+     *  Replaces every piece on the board
+     * @param hPieces mask of H pieces
+     * @param vPieces mask of V pieces
+     */
+    public void setPieces(long hPieces, long vPieces) {
+        this.hPieces = hPieces & boardMask;
+        this.vPieces = vPieces & boardMask;
+    }
+
+    /**
+     *  Mask of the player's pieces that can legally move in direction d
+     * @param player the player (H or V)
+     * @param d the direction
+     * @return the mask of pieces
+     */
+    public long movers(int player, Move.Direction d) {
+        long empty = getEmpty();
+        if (player == H) {
+            switch (d) {
+                case RIGHT: return (hPieces & (empty >>> 1)) | (hPieces & hExitMask);
+                case UP:    return hPieces & (empty >>> STRIDE);
+                case DOWN:  return hPieces & (empty << STRIDE);
+                default:    return 0;
+            }
+        }
+        switch (d) {
+            case UP:    return (vPieces & (empty >>> STRIDE)) | (vPieces & vExitMask);
+            case RIGHT: return vPieces & (empty >>> 1);
+            case LEFT:  return vPieces & (empty << 1);
+            default:    return 0;
+        }
+    }
+
+    /**
+     *  Writes all legal moves for a player into a buffer as packed moves
+     * @param player the player (H or V)
+     * @param buffer the buffer, which must have room for 3 moves per piece
+     * @param offset where to start writing in the buffer
+     * @return the number of moves written
+     */
+    public int generateMoves(int player, int[] buffer, int offset) {
+        int count = offset;
+        for (Move.Direction d : DIRECTIONS) {
+            long mask = movers(player, d);
+            while (mask != 0) {
+                int square = Long.numberOfTrailingZeros(mask);
+                buffer[count++] = PackedMove.of(square, d);
+                mask &= mask - 1;
+            }
+        }
+        return count - offset;
+    }
+
+    /**
+     *  Writes one stage of a player's legal moves into a buffer as packed
+     *  moves, for Board.generateMoves and the Search. Generating
+     *  Board.FORWARD_MOVES then Board.SIDEWAYS_MOVES gives every legal move
+     *  exactly once.
+     * @param player the player (H or V)
+     * @param stage Board.FORWARD_MOVES (including moves off the board) or
+     * Board.SIDEWAYS_MOVES
+     * @param buffer the buffer, with room for 2 moves per piece
+     * @param offset where to start writing in the buffer
+     * @return the number of moves written
+     */
+    public int generateMoves(int player, int stage, int[] buffer, int offset) {
+        if (stage == Board.FORWARD_MOVES) {
+            return writeMoves(player, player == H ? Move.Direction.RIGHT : Move.Direction.UP,
+                    buffer, offset) - offset;
+        }
+        int count = player == H
+                ? writeMoves(player, Move.Direction.UP, buffer, offset)
+                : writeMoves(player, Move.Direction.RIGHT, buffer, offset);
+        count = player == H
+                ? writeMoves(player, Move.Direction.DOWN, buffer, count)
+                : writeMoves(player, Move.Direction.LEFT, buffer, count);
+        return count - offset;
+    }
+
+    /**
+     *  Writes a player's legal moves in one direction into a buffer
+     * @param player the player (H or V)
+     * @param d the direction
+     * @param buffer the buffer
+     * @param count where to start writing in the buffer
+     * @return where writing stopped
+     */
+    private int writeMoves(int player, Move.Direction d, int[] buffer, int count) {
+        long mask = movers(player, d);
+        while (mask != 0) {
+            buffer[count++] = PackedMove.of(Long.numberOfTrailingZeros(mask), d);
+            mask &= mask - 1;
+        }
+        return count;
+    }
+
+    /**
+     *  Counts the legal moves for a player
+     * @param player the player (H or V)
+     * @return the number of legal moves
+     */
+    public int countMoves(int player) {
+        int count = 0;
+        for (Move.Direction d : DIRECTIONS) {
+            count += Long.bitCount(movers(player, d));
+        }
+        return count;
+    }
+
+    /**
+     *  Whether a player has any legal move
+     * @param player the player (H or V)
+     * @return true if the player has a move
+     */
+    public boolean hasMoves(int player) {
+        for (Move.Direction d : DIRECTIONS) {
+            if (movers(player, d) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *  Whether a packed move is legal for a player
+     * @param player the player (H or V)
+     * @param move the packed move
+     * @return true if the move is legal
+     */
+    public boolean isLegal(int player, int move) {
+        return (movers(player, PackedMove.direction(move)) & (1L << PackedMove.square(move))) != 0;
+    }
+
+    /**
+     *  Applies a legal packed move. Moving a piece only flips bits, so
+     *  applying the same move again with unmakeMove restores the board,
+     *  and its hash key.
+     * @param player the player (H or V)
+     * @param move the packed move
+     */
+    public void makeMove(int player, int move) {
+        int from = PackedMove.square(move);
+        int to = from + DELTAS[move & 3];
+        long change = 1L << from;
+        hashKey ^= Zobrist.SIDE ^ Zobrist.piece(player, from);
+
+        // Pieces leaving the board just disappear
+        if (to >= 0 && ((1L << to) & boardMask) != 0) {
+            change |= 1L << to;
+            hashKey ^= Zobrist.piece(player, to);
+        }
+        if (player == H) {
+            hPieces ^= change;
+        }
+        else {
+            vPieces ^= change;
+        }
+    }
+
+    /**
+     *  Passes the turn, which only changes the hash key; passing again
+     *  takes it back
+     */
+    public void pass() {
+        hashKey ^= Zobrist.SIDE;
+    }
+
+    /**
+     *  The Zobrist key of the position, the same as a Board's with the same
+     *  position. makeMove and pass keep it up to date; call rehash after
+     *  changing the board any other way.
+     * @return the key
+     */
+    public long getHashKey() {
+        return hashKey;
+    }
+
+    /**
+     *  Recomputes the Zobrist key
+     * @param vToMove whether V is the player to move
+     */
+    public void rehash(boolean vToMove) {
+        hashKey = Zobrist.hash(this, vToMove);
+    }
+
+    /**
+     *  The number of a player's pieces a distance from their goal edge, 0
+     *  for pieces in the last column (H) or row (V)
+     * @param player the player (H or V)
+     * @param d the distance
+     * @return the number of pieces
+     */
+    public int piecesAtDistance(int player, int d) {
+        if (player == H) {
+            return Long.bitCount(hPieces & COLUMNS[length - 1 - d]);
+        }
+        return Long.bitCount(vPieces & ROWS[length - 1 - d]);
+    }
+
+    /**
+     *  The number of a player's pieces that can move forward, off the board
+     *  or into an empty square
+     * @param player the player (H or V)
+     * @return the number of pieces
+     */
+    public int forwardMovers(int player) {
+        return Long.bitCount(movers(player, player == H ? Move.Direction.RIGHT : Move.Direction.UP));
+    }
+
+    /**
+     *  Solves a race exactly. The position is a race when every V piece is
+     *  above and to the left of every H piece, and no blocked square is in
+     *  front of any piece. V never moves down and H never moves left, so
+     *  neither side can ever get in the other's way; each side always has a
+     *  forward move, so neither passes, and sideways moves only waste time.
+     *  Each side therefore needs exactly its total distance off the board in
+     *  moves, whatever the other does, and the player to move wins ties.
+     * @param player the player to move (H or V)
+     * @return NOT_A_RACE, or the number of plies until the game ends: positive
+     * if the player to move wins, negative if it loses
+     */
+    public int raceResult(int player) {
+        if (hPieces == 0 || vPieces == 0) {
+            return NOT_A_RACE;
+        }
+
+        int vRight = -1;
+        int vBottom = length;
+        int vMoves = 0;
+        for (long pieces = vPieces; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            int x = squareX(square);
+            int y = squareY(square);
+            if ((blocked & COLUMNS[x] & -(2L << square)) != 0) {
+                return NOT_A_RACE;
+            }
+            vRight = Math.max(vRight, x);
+            vBottom = Math.min(vBottom, y);
+            vMoves += length - y;
+        }
+
+        int hMoves = 0;
+        for (long pieces = hPieces; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            int x = squareX(square);
+            int y = squareY(square);
+            if (x <= vRight || y >= vBottom || (blocked & ROWS[y] & -(2L << square)) != 0) {
+                return NOT_A_RACE;
+            }
+            hMoves += length - x;
+        }
+
+        // the player to move finishes on its own last move, the opponent
+        // one ply after its last move
+        int toMove = player == H ? hMoves : vMoves;
+        int waiting = player == H ? vMoves : hMoves;
+        if (toMove <= waiting) {
+            return 2 * toMove - 1;
+        }
+        return -2 * waiting;
+    }
+
+    /**
+     *  Reverts a packed move made with makeMove
+     * @param player the player (H or V)
+     * @param move the packed move
+     */
+    public void unmakeMove(int player, int move) {
+        makeMove(player, move);
+    }
+
+    /**
+     *  Returns all available moves for the given player cell_type
+     * @param cell_type the player's cell type
+     * @return an ArrayList of legal moves
+     * @throws IllegalArgumentException if cell_type isn't H or V
+     */
+    public ArrayList<Move> getAllMoves(String cell_type) {
+        int player = player(cell_type);
+        if (player < 0) {
+            throw new IllegalArgumentException("not a player's cell type: " + cell_type);
+        }
+
+        int[] buffer = new int[3 * Long.bitCount(getPieces(player))];
+        int count = generateMoves(player, buffer, 0);
+
+        ArrayList<Move> moves = new ArrayList<Move>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(PackedMove.toMove(buffer[i]));
+        }
+        return moves;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(2 * length * length);
+        for (int y = length - 1; y >= 0; y--) {
+            for (int x = 0; x < length; x++) {
+                s.append(getCellType(x, y));
+                s.append(x < length - 1 ? ' ' : '\n');
+            }
+        }
+        return s.toString();
+    }
+}
@@ -12,6 +12,7 @@
 package aiproj.slider;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.function.Predicate;
 /**
  * Board class for a player for the game "Slider"
@@ -22,7 +23,7 @@ import java.util.function.Predicate;
  * See comments.txt for details
  *
  */
-public class Board {
+public class Board implements SliderBoard {
 
     // 2D Array representing the board
     private Tile[][] tiles;
@@ -32,8 +33,20 @@ public class Board {
     private ArrayList<Move> movesPlayer = new ArrayList<Move>();
     private ArrayList<Move> movesOpponent = new ArrayList<Move>();
 
+    // The same position as masks, which move generation and the Zobrist
+    // key come from, so the tiles and the search's board can't disagree
+    private BitBoard bits;
+
+    // Undo records for the moves made on this board, reused once unmade
+    private UndoRecord[] undoStack = new UndoRecord[0];
+    private int undoDepth;
+
     public static final Integer MAX_SIZE = 7;
 
+    // Move generation stages (see generateMoves)
+    public static final int FORWARD_MOVES = 0;
+    public static final int SIDEWAYS_MOVES = 1;
+
     /**
      * Constructor for an empty board
      * @param N the length ai width of the board in tiles
@@ -41,6 +54,7 @@ public class Board {
     public Board(int N) {
         tiles = new Tile[N][N];
         length = N;
+        bits = new BitBoard(N);
     }
 
     /**
@@ -54,6 +68,7 @@ public class Board {
         this.hTiles = hTiles;
         this.vTiles = vTiles;
         this.length = tiles.length;
+        rehash();
     }
 
     /**
@@ -73,21 +88,208 @@ public class Board {
             }
         }
 
-        // create list of h and v tiles
-        ArrayList<Tile> new_hTiles = new ArrayList<Tile>();
-        ArrayList<Tile> new_vTiles = new ArrayList<Tile>();
+        // create list of h and v tiles, pointing at the new tiles
+        ArrayList<Tile> new_hTiles = new ArrayList<Tile>(hTiles.size());
+        ArrayList<Tile> new_vTiles = new ArrayList<Tile>(vTiles.size());
 
         for (Tile tile : hTiles) {
-            new_hTiles.add(tile);
+            new_hTiles.add(newTiles[tile.getRow()][tile.getCol()]);
         }
         for (Tile tile : vTiles) {
-            new_vTiles.add(tile);
+            new_vTiles.add(newTiles[tile.getRow()][tile.getCol()]);
         }
 
         // make and return the board
-        return new Board(newTiles, new_hTiles, new_vTiles);
+        Board newBoard = new Board(newTiles, new_hTiles, new_vTiles);
+        newBoard.bits = bits.copyBoard();
+        return newBoard;
+    }
+
+
+    /**
+     *  Makes a move in place, keeping tiles, hTiles and vTiles consistent
+     * @param move the move, or null for a pass
+     * @param player the cell type of the player making the move
+     * @return a record that unmakeMove uses to take the move back
+     */
+    public UndoRecord makeMove(Move move, String player) {
+        if (move == null) {
+            return makeMove(PackedMove.NONE, player);
+        }
+        return makeMove(PackedMove.fromMove(move), player);
+    }
+
+    /**
+     *  Makes a packed move in place, keeping tiles, hTiles and vTiles consistent
+     * @param move the packed move (see PackedMove), or PackedMove.NONE for a pass
+     * @param player the cell type of the player making the move
+     * @return a record that unmakeMove uses to take the move back; it is
+     * reused by a later move once the move has been unmade
+     */
+    public UndoRecord makeMove(int move, String player) {
+        UndoRecord undo = nextUndo();
+        if (move == PackedMove.NONE) {
+            bits.pass();
+            return undo.set(move, player, null, null, -1);
+        }
+
+        int square = PackedMove.square(move);
+        int x = BitBoard.squareX(square);
+        int y = BitBoard.squareY(square);
+
+        ArrayList<Tile> playerTiles = getPlayerTiles(player);
+        Tile from = getTile(x, y);
+        int index = indexOfTile(playerTiles, from);
+
+        // where's the next space?
+        int toX = x, toY = y;
+        switch (PackedMove.direction(move)) {
+            case UP:    toY++; break;
+            case DOWN:  toY--; break;
+            case RIGHT: toX++; break;
+            case LEFT:  toX--; break;
+        }
+
+        from.setCellType(Tile.EMPTY);
+        bits.makeMove(BitBoard.player(player), move);
+
+        // piece moved off the board
+        if (toX < 0 || toX >= length || toY < 0 || toY >= length) {
+            playerTiles.remove(index);
+            return undo.set(move, player, from, null, index);
+        }
+
+        Tile to = getTile(toX, toY);
+        to.setCellType(player);
+        playerTiles.set(index, to);
+        return undo.set(move, player, from, to, index);
+    }
+
+    /**
+     *  Makes a packed move that won't be taken back, such as a move of the
+     *  game being played, without keeping an undo record for it
+     * @param move the packed move (see PackedMove), or PackedMove.NONE for a pass
+     * @param player the cell type of the player making the move
+     */
+    public void applyMove(int move, String player) {
+        undoDepth = makeMove(move, player).slot;
+    }
+
+    /**
+     *  The undo record for the next move, made once and then reused
+     * @return the record
+     */
+    private UndoRecord nextUndo() {
+        if (undoDepth == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, Math.max(2 * undoStack.length, Search.MAX_PLY));
+            for (int i = undoDepth; i < undoStack.length; i++) {
+                undoStack[i] = new UndoRecord(i);
+            }
+        }
+        return undoStack[undoDepth++];
+    }
+
+    /**
+     *  Takes back a move made with makeMove. Moves must be unmade in the
+     *  reverse order they were made.
+     * @param undo the record returned by makeMove
+     */
+    public void unmakeMove(UndoRecord undo) {
+        undoDepth = undo.slot;
+        if (undo.move == PackedMove.NONE) {
+            bits.pass();
+            return;
+        }
+
+        ArrayList<Tile> playerTiles = getPlayerTiles(undo.player);
+        undo.from.setCellType(undo.player);
+        bits.unmakeMove(BitBoard.player(undo.player), undo.move);
+
+        if (undo.to == null) {
+            // put back a piece that left the board
+            playerTiles.add(undo.index, undo.from);
+        }
+        else {
+            undo.to.setCellType(Tile.EMPTY);
+            playerTiles.set(undo.index, undo.from);
+        }
+    }
+
+    /**
+     *  Whether a packed move is legal for a player
+     * @param move the packed move (see PackedMove)
+     * @param player the cell type of the player
+     * @return true if the move is legal
+     */
+    public boolean isLegal(int move, String player) {
+        return bits.isLegal(BitBoard.player(player), move);
     }
 
+    /**
+     *  Writes one stage of a player's legal moves into a buffer as packed
+     *  moves, without allocating. Generating FORWARD_MOVES then
+     *  SIDEWAYS_MOVES gives every legal move exactly once, so a search can
+     *  stop after the first stage if it gets a cutoff.
+     * @param player the cell type of the player
+     * @param stage FORWARD_MOVES (including moves off the board) or SIDEWAYS_MOVES
+     * @param buffer the buffer, with room for 2 moves per piece
+     * @param offset where to start writing in the buffer
+     * @return the number of moves written
+     */
+    public int generateMoves(String player, int stage, int[] buffer, int offset) {
+        return bits.generateMoves(BitBoard.player(player), stage, buffer, offset);
+    }
+
+    /**
+     *  The Zobrist key of the position. makeMove and unmakeMove keep it up
+     *  to date; call rehash after changing tiles any other way.
+     * @return the key
+     */
+    public long getHashKey() {
+        return bits.getHashKey();
+    }
+
+    /**
+     *  The position as a BitBoard, which makeMove and unmakeMove keep up to
+     *  date. Copy it (see BitBoard.copyBoard) rather than changing it.
+     * @return the bitboard
+     */
+    public BitBoard getBitBoard() {
+        return bits;
+    }
+
+    /**
+     *  Recomputes the Zobrist key from the tiles, for a position with H to
+     *  move (as at the start of a game)
+     */
+    public void rehash() {
+        rehash(false);
+    }
+
+    /**
+     *  Recomputes the masks and the Zobrist key from the tiles
+     * @param vToMove whether V is the player to move
+     */
+    public void rehash(boolean vToMove) {
+        bits = new BitBoard(this);
+        bits.rehash(vToMove);
+    }
+
+    /**
+     *  Finds a tile in a list of player tiles by position
+     * @param playerTiles the list
+     * @param tile the tile
+     * @return the index of the tile
+     */
+    private static int indexOfTile(ArrayList<Tile> playerTiles, Tile tile) {
+        for (int i = 0; i < playerTiles.size(); i++) {
+            Tile t = playerTiles.get(i);
+            if (t.getRow() == tile.getRow() && t.getCol() == tile.getCol()) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("no piece at " + tile);
+    }
 
     /**
      *  Returns all available moves for the given player cell_type
@@ -170,6 +372,16 @@ public class Board {
         return tiles[length-1-y][x];
     }
 
+    /**
+     *  get the cell type of the tile at position x, y
+     * @param x x position
+     * @param y y position
+     * @return the cell type
+     */
+    public String getCellType(int x, int y) {
+        return getTile(x, y).getCellType();
+    }
+
     /**
      *  Gets the 2D array indices, given cartesian x,y coordinates
      * @param givenX
@@ -192,6 +404,7 @@ public class Board {
     public void updateTile(int x, int y, String newCellType) {
         if (length-1-y < length && length-1-y >= 0 && x < length && x >= 0) {
             tiles[length-1-y][x].setCellType(newCellType);
+            bits.setCellType(x, y, newCellType);
         }
     }
 
@@ -0,0 +1,35 @@
+package aiproj.slider;
+
+/**
+ * CPUTimer class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Small helper class for nanosecond CPU usage timing, of the calling
+ * thread. The Referee times each player with one, and the search uses the
+ * same measure for its time budget.
+ *
+ * See comments.txt for details
+ *
+ */
+class CPUTimer {
+    long start = 0; // nanosecond time we started timing
+    java.lang.management.ThreadMXBean thread =
+            java.lang.management.ManagementFactory.getThreadMXBean();
+
+    public CPUTimer() {
+        thread.setThreadCpuTimeEnabled(true);
+    }
+
+    /** Restart the clock to start timing again from now */
+    public void start() {
+        start = thread.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Return time since started (clock() can be called multiple times per 
+     * start(), but start() should be called at least once before clock())
+     */
+    public long clock() {
+        return thread.getCurrentThreadCpuTime() - start;
+    }
+}
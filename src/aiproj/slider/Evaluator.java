@@ -0,0 +1,167 @@
+package aiproj.slider;
+
+/**
+ * Evaluator class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Computes the 17 features described in comments.txt for a board, from the
+ * point of view of one player, and combines them with the learned weights:
+ *
+ *   0       player tiles - opponent tiles
+ *   1       opponent distance to goal - player distance to goal
+ *   2       player forward move proportion - opponent forward move proportion
+ *   3 + 2d  number of player tiles d tiles from the goal edge (d = 0..6)
+ *   4 + 2d  number of opponent tiles d tiles from the goal edge (d = 0..6)
+ *
+ * See comments.txt for details
+ *
+ */
+public class Evaluator {
+
+    public static final int NUM_FEATURES = 17;
+
+    // Scales the weighted sum into the steep part of tanh
+    public static final double SCALE = 0.01;
+
+    private final double[] weights;
+
+    /**
+     *  Construct an evaluator
+     * @param weights the feature weights (see weights.txt)
+     */
+    public Evaluator(double[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     *
+     * @return the feature weights
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     *  Evaluates a board for a player, from its BitBoard
+     * @param board the board
+     * @param player the player's cell type
+     * @return the value, between -1 and 1
+     */
+    public double evaluate(Board board, String player) {
+        return evaluate(board.getBitBoard(), BitBoard.player(player));
+    }
+
+    /**
+     *  Evaluates a bitboard for a player, from popcounts of its masks
+     * @param board the board
+     * @param player the player (BitBoard.H or BitBoard.V)
+     * @return the value, between -1 and 1
+     */
+    public double evaluate(BitBoard board, int player) {
+        int p = player;
+        int o = 1 - p;
+        int N = board.getLength();
+
+        // the evaluator is shared by helper threads, so counts are worked
+        // out as needed rather than kept in an array
+        int pTiles = board.pieceCount(p);
+        int oTiles = board.pieceCount(o);
+
+        double sum = weights[0] * (pTiles - oTiles)
+                + weights[1] * (distance(board, o) - distance(board, p))
+                + weights[2] * (forwardProportion(board.forwardMovers(p), pTiles, N)
+                        - forwardProportion(board.forwardMovers(o), oTiles, N));
+        for (int d = 0; d < N; d++) {
+            sum += weights[3 + 2 * d] * board.piecesAtDistance(p, d)
+                    + weights[4 + 2 * d] * board.piecesAtDistance(o, d);
+        }
+        return Math.tanh(SCALE * sum);
+    }
+
+    /**
+     *  Combines features with the weights
+     * @param features the features
+     * @return the value, between -1 and 1
+     */
+    public double value(double[] features) {
+        return value(weights, features);
+    }
+
+    /**
+     *  Combines features with a set of weights
+     * @param weights the weights
+     * @param features the features
+     * @return the value, between -1 and 1
+     */
+    public static double value(double[] weights, double[] features) {
+        double sum = 0;
+        for (int i = 0; i < NUM_FEATURES; i++) {
+            sum += weights[i] * features[i];
+        }
+        return Math.tanh(SCALE * sum);
+    }
+
+    /**
+     *  Computes the features of a board for a player
+     * @param board the board
+     * @param player the player's cell type
+     * @return the features
+     */
+    public static double[] features(Board board, String player) {
+        double[] features = new double[NUM_FEATURES];
+        features(board, player, features);
+        return features;
+    }
+
+    /**
+     *  Computes the features of a board for a player into an array
+     * @param board the board
+     * @param player the player's cell type
+     * @param features the array to fill, of length NUM_FEATURES
+     */
+    public static void features(Board board, String player, double[] features) {
+        BitBoard bits = board.getBitBoard();
+        int p = BitBoard.player(player);
+        int o = 1 - p;
+        int N = board.getLength();
+        int pTiles = bits.pieceCount(p);
+        int oTiles = bits.pieceCount(o);
+
+        features[0] = pTiles - oTiles;
+        features[1] = distance(bits, o) - distance(bits, p);
+        features[2] = forwardProportion(bits.forwardMovers(p), pTiles, N)
+                - forwardProportion(bits.forwardMovers(o), oTiles, N);
+        for (int d = 0; d < Board.MAX_SIZE; d++) {
+            features[3 + 2 * d] = d < N ? bits.piecesAtDistance(p, d) : 0;
+            features[4 + 2 * d] = d < N ? bits.piecesAtDistance(o, d) : 0;
+        }
+    }
+
+    /**
+     *  The total distance of a player's tiles from their goal edge
+     * @param board the board
+     * @param player the player (BitBoard.H or BitBoard.V)
+     * @return the distance
+     */
+    private static int distance(BitBoard board, int player) {
+        int distance = 0;
+        for (int d = 1; d < board.getLength(); d++) {
+            distance += d * board.piecesAtDistance(player, d);
+        }
+        return distance;
+    }
+
+    /**
+     *  Forward moves per tile, scaled by the number of tiles a player starts with
+     * @param forward the player's tiles with a forward move
+     * @param tiles the player's tiles
+     * @param N the board size
+     * @return the proportion
+     */
+    private static double forwardProportion(int forward, int tiles, int N) {
+        if (tiles == 0) {
+            return 0;
+        }
+        return (double) forward / tiles * (N - 1);
+    }
+}
@@ -0,0 +1,35 @@
+package aiproj.slider;
+
+/**
+ * GameListener interface for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Told about each game a GameRunner plays, for example to print it the way
+ * the Referee does. The board is only turned into text when a GameRunner has
+ * listeners, so headless games don't pay for it.
+ *
+ * See comments.txt for details
+ *
+ */
+public interface GameListener {
+
+    /**
+     *  Called once the players have been given the starting board
+     * @param board the starting board, as text
+     */
+    public void gameStarted(String board);
+
+    /**
+     *  Called after each legal move or pass
+     * @param player the player who moved (BitBoard.H or BitBoard.V)
+     * @param move the move, or null for a pass
+     * @param board the board after the move, as text
+     */
+    public void moveMade(int player, Move move, String board);
+
+    /**
+     *  Called at the end of the game
+     * @param result the result
+     */
+    public void gameFinished(GameResult result);
+}
@@ -0,0 +1,217 @@
+package aiproj.slider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * GameRecord class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * A played game, as kept in a game record file (see GameRecordWriter and
+ * GameRecordReader): the starting board, how the game ended, and every move
+ * as one byte. A move's byte is its packed move (see PackedMove), which
+ * always fits for boards up to 7x7, or PASS.
+ *
+ * Replaying a record rebuilds every position of the game without searching,
+ * so evaluation features can be extracted again, for example with new
+ * features or to retrain the weights.
+ *
+ * See comments.txt for details
+ *
+ */
+public class GameRecord {
+
+    // How the game ended
+    public static final int H_WON = 0, V_WON = 1, TIE = 2, UNFINISHED = 3;
+
+    // The byte of a pass
+    public static final int PASS = 0xFF;
+
+    private final int length;
+    private final long seed;
+    private final int result;
+    private final long blocked;
+    private final long hStart;
+    private final long vStart;
+    private final byte[] moves;
+
+    /**
+     *  Construct a game record
+     * @param length the board size
+     * @param seed the seed the starting board came from
+     * @param result H_WON, V_WON, TIE or UNFINISHED
+     * @param blocked mask of blocked squares (see BitBoard)
+     * @param hStart mask of H pieces at the start
+     * @param vStart mask of V pieces at the start
+     * @param moves a byte per move, H first
+     */
+    public GameRecord(int length, long seed, int result, long blocked, long hStart, long vStart,
+                      byte[] moves) {
+        this.length = length;
+        this.seed = seed;
+        this.result = result;
+        this.blocked = blocked;
+        this.hStart = hStart;
+        this.vStart = vStart;
+        this.moves = moves;
+    }
+
+    /**
+     *  Records a game played by a GameRunner. An illegal last move is left
+     *  out, and the game counts as unfinished.
+     * @param game the game's result
+     * @return the record
+     */
+    public static GameRecord of(GameResult game) {
+        BitBoard start = Input.readBitBoard(game.getLength(), game.getStartingBoard());
+        List<Move> played = game.getMoves();
+        int count = game.getIllegalMove() == null ? played.size() : played.size() - 1;
+
+        byte[] moves = new byte[count];
+        for (int i = 0; i < count; i++) {
+            Move move = played.get(i);
+            moves[i] = (byte) (move == null ? PASS : PackedMove.fromMove(move));
+        }
+
+        int result = UNFINISHED;
+        if (game.getIllegalMove() == null && game.isFinished()) {
+            result = game.getWinner().equals(Tile.PLAYER_H) ? H_WON
+                    : game.getWinner().equals(Tile.PLAYER_V) ? V_WON : TIE;
+        }
+        return new GameRecord(game.getLength(), game.getSeed(), result, start.getBlocked(),
+                start.getHPieces(), start.getVPieces(), moves);
+    }
+
+    /**
+     *
+     * @return the starting board
+     */
+    public BitBoard startingBoard() {
+        return new BitBoard(length, hStart, vStart, blocked);
+    }
+
+    /**
+     *  A move of the game
+     * @param turn the turn, from 0
+     * @return the packed move, or PackedMove.NONE for a pass
+     */
+    public int getMove(int turn) {
+        int move = moves[turn] & 0xFF;
+        return move == PASS ? PackedMove.NONE : move;
+    }
+
+    /**
+     *  Plays through the game, showing each position before the move made
+     *  from it, then the final position
+     * @param visitor given the board and the cell type of the player to
+     * move; the board is changed afterwards, so mustn't be kept
+     */
+    public void replay(BiConsumer<Board, String> visitor) {
+        Board board = Input.readBoard(length, startingBoard().toString());
+        String player = Tile.PLAYER_H;
+        for (int turn = 0; turn < moves.length; turn++) {
+            visitor.accept(board, player);
+            board.applyMove(getMove(turn), player);
+            player = Search.other(player);
+        }
+        visitor.accept(board, player);
+    }
+
+    /**
+     *  The evaluation features (see Evaluator) after each of a player's moves
+     * @param player the player's cell type
+     * @return the features, in the order the moves were made
+     */
+    public List<double[]> features(String player) {
+        List<double[]> features = new ArrayList<double[]>();
+        boolean[] first = {true};
+        replay((board, toMove) -> {
+            // positions the player has just moved into
+            if (!toMove.equals(player) && !first[0]) {
+                features.add(Evaluator.features(board, player));
+            }
+            first[0] = false;
+        });
+        return features;
+    }
+
+    /**
+     *  The result from a player's point of view
+     * @param player the player's cell type
+     * @return 1 for a win, -1 for a loss, 0 for a tie or unfinished game
+     */
+    public double resultFor(String player) {
+        if (result == H_WON) {
+            return player.equals(Tile.PLAYER_H) ? 1 : -1;
+        }
+        if (result == V_WON) {
+            return player.equals(Tile.PLAYER_V) ? 1 : -1;
+        }
+        return 0;
+    }
+
+    /**
+     *
+     * @return the board size
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     *
+     * @return the seed the starting board came from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     *
+     * @return H_WON, V_WON, TIE or UNFINISHED
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     *
+     * @return mask of blocked squares
+     */
+    public long getBlocked() {
+        return blocked;
+    }
+
+    /**
+     *
+     * @return mask of H pieces at the start
+     */
+    public long getHStart() {
+        return hStart;
+    }
+
+    /**
+     *
+     * @return mask of V pieces at the start
+     */
+    public long getVStart() {
+        return vStart;
+    }
+
+    /**
+     *
+     * @return the number of moves made
+     */
+    public int getTurns() {
+        return moves.length;
+    }
+
+    /**
+     *
+     * @return a byte per move, H first
+     */
+    byte[] getMoves() {
+        return moves;
+    }
+}
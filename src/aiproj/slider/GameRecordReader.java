@@ -0,0 +1,152 @@
+package aiproj.slider;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * GameRecordReader class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Reads the games in a game record file (see GameRecordWriter) one at a
+ * time, so files of millions of games never need to fit in memory. Run it
+ * with
+ *
+ *   java aiproj.slider.GameRecordReader games.rec
+ *
+ * to replay every game in a file and count the results, checking that
+ * every recorded move is legal.
+ *
+ * See comments.txt for details
+ *
+ */
+public class GameRecordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+    private final DataInputStream in;
+
+    /**
+     *  Opens a game record file
+     * @param file the game record file
+     * @throws IOException if the file can't be opened or isn't a game record file
+     */
+    public GameRecordReader(Path file) throws IOException {
+        this.file = file;
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        try {
+            if (in.readInt() != GameRecordWriter.MAGIC) {
+                throw new IOException(file + " is not a game record file");
+            }
+            int version = in.readInt();
+            if (version != GameRecordWriter.VERSION) {
+                throw new IOException(file + ": unsupported game record version " + version);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e instanceof EOFException ? new IOException(file + " is not a game record file") : e;
+        }
+    }
+
+    /**
+     *  Reads the next game
+     * @return the game, or null at the end of the file
+     * @throws IOException if the file can't be read or the game is cut short
+     */
+    public GameRecord next() throws IOException {
+        int length = in.read();
+        if (length < 0) {
+            return null;
+        }
+        try {
+            int result = in.readUnsignedByte();
+            long seed = in.readLong();
+            long blocked = in.readLong();
+            long hStart = in.readLong();
+            long vStart = in.readLong();
+            byte[] moves = new byte[in.readUnsignedShort()];
+            in.readFully(moves);
+            return new GameRecord(length, seed, result, blocked, hStart, vStart, moves);
+        } catch (EOFException e) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     *  Replays every game in a game record file
+     * @param args the game record file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: java aiproj.slider.GameRecordReader games.rec");
+            System.exit(1);
+        }
+        int[] results = new int[4];
+        long positions = 0;
+        long started = System.nanoTime();
+
+        try (GameRecordReader reader = new GameRecordReader(Paths.get(args[0]))) {
+            for (GameRecord game = reader.next(); game != null; game = reader.next()) {
+                int[] moves = new int[3 * game.getLength() * game.getLength()];
+                GameRecord replayed = game;
+                int[] turn = {0};
+                game.replay((board, player) -> {
+                    if (turn[0] < replayed.getTurns()) {
+                        check(board, player, replayed.getMove(turn[0]++), moves);
+                    }
+                });
+                results[game.getResult()]++;
+                positions += game.getTurns() + 1;
+            }
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%d games, %d positions (%.0f per second): H %d, V %d, tie %d, unfinished %d%n",
+                results[0] + results[1] + results[2] + results[3], positions, positions / seconds,
+                results[GameRecord.H_WON], results[GameRecord.V_WON], results[GameRecord.TIE],
+                results[GameRecord.UNFINISHED]);
+    }
+
+    /**
+     *  Checks that a recorded move is legal
+     * @param board the board before the move
+     * @param player the cell type of the player to move
+     * @param move the recorded move
+     * @param moves space to generate moves into
+     */
+    private static void check(Board board, String player, int move, int[] moves) {
+        int count = board.generateMoves(player, Board.FORWARD_MOVES, moves, 0);
+        count += board.generateMoves(player, Board.SIDEWAYS_MOVES, moves, count);
+        if (move == PackedMove.NONE ? count == 0 : contains(moves, count, move)) {
+            return;
+        }
+        throw new IllegalStateException("illegal recorded move " + PackedMove.toString(move)
+                + " by " + player + " on\n" + board);
+    }
+
+    /**
+     * @param moves the moves
+     * @param count the number of moves
+     * @param move a move
+     * @return true if the move is one of the moves
+     */
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
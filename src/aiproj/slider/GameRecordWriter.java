@@ -0,0 +1,95 @@
+package aiproj.slider;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GameRecordWriter class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Appends games to a game record file. A new file starts with MAGIC and
+ * VERSION as ints; then each game is
+ *
+ *   byte   board size
+ *   byte   result (see GameRecord)
+ *   long   seed
+ *   long   blocked squares, H pieces and V pieces at the start (see BitBoard)
+ *   short  number of moves
+ *   byte   each move (see GameRecord)
+ *
+ * all big-endian, so a typical game takes a few dozen bytes. Games are
+ * buffered and only reach the file when the buffer fills or the writer is
+ * closed. The writer may be shared by GameRunners on several threads.
+ *
+ * See comments.txt for details
+ *
+ */
+public class GameRecordWriter implements Closeable {
+
+    public static final int MAGIC = 0x534C4752;
+    public static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private int games;
+
+    /**
+     *  Opens a game record file to append to, creating it if need be
+     * @param file the game record file
+     * @throws IOException if the file can't be opened
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        boolean empty = !Files.exists(file) || Files.size(file) == 0;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE));
+        if (empty) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+    }
+
+    /**
+     *  Appends a game
+     * @param game the game
+     * @throws IOException if the game can't be written
+     */
+    public synchronized void write(GameRecord game) throws IOException {
+        out.writeByte(game.getLength());
+        out.writeByte(game.getResult());
+        out.writeLong(game.getSeed());
+        out.writeLong(game.getBlocked());
+        out.writeLong(game.getHStart());
+        out.writeLong(game.getVStart());
+        out.writeShort(game.getTurns());
+        out.write(game.getMoves());
+        games++;
+    }
+
+    /**
+     *  Appends a game played by a GameRunner
+     * @param result the game's result
+     * @throws IOException if the game can't be written
+     */
+    public void write(GameResult result) throws IOException {
+        write(GameRecord.of(result));
+    }
+
+    /**
+     *
+     * @return the number of games written
+     */
+    public synchronized int getGames() {
+        return games;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
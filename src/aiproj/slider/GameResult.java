@@ -0,0 +1,136 @@
+package aiproj.slider;
+
+import java.util.List;
+
+/**
+ * GameResult class for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * The outcome of a game played by a GameRunner: how it ended, how long it
+ * took, and every move made.
+ *
+ * See comments.txt for details
+ *
+ */
+public class GameResult {
+
+    private final int length;
+    private final long seed;
+    private final String startingBoard;
+    private final String winner;
+    private final List<Move> moves;
+    private final long[] times;
+    private final String illegalMove;
+
+    /**
+     *  Construct a game result
+     * @param length the board size
+     * @param seed the seed the starting board came from
+     * @param startingBoard the starting board, as text
+     * @param winner the winner's cell type, Tile.EMPTY for a tie, or null if
+     * the game didn't finish
+     * @param moves every move made, H first, with null for a pass
+     * @param times CPU time used by each player, in nanoseconds
+     * @param illegalMove why the last move was illegal, or null if every move was legal
+     */
+    public GameResult(int length, long seed, String startingBoard, String winner, List<Move> moves,
+                      long[] times, String illegalMove) {
+        this.length = length;
+        this.seed = seed;
+        this.startingBoard = startingBoard;
+        this.winner = winner;
+        this.moves = moves;
+        this.times = times;
+        this.illegalMove = illegalMove;
+    }
+
+    /**
+     *
+     * @return whether the game ended with a winner or a tie
+     */
+    public boolean isFinished() {
+        return winner != null;
+    }
+
+    /**
+     *
+     * @return the winner's cell type, Tile.EMPTY for a tie, or null if the
+     * game didn't finish
+     */
+    public String getWinner() {
+        return winner;
+    }
+
+    /**
+     *
+     * @return the number of turns played, including an illegal last move
+     */
+    public int getTurns() {
+        return moves.size();
+    }
+
+    /**
+     *
+     * @return every move made, H first, with null for a pass
+     */
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    /**
+     *
+     * @return the last move made, or null if it was a pass or there were none
+     */
+    public Move getLastMove() {
+        return moves.isEmpty() ? null : moves.get(moves.size() - 1);
+    }
+
+    /**
+     *
+     * @return the player who made the last move (BitBoard.H or BitBoard.V)
+     */
+    public int getLastPlayer() {
+        return (moves.size() - 1) % 2;
+    }
+
+    /**
+     *
+     * @return CPU time used by each player, in nanoseconds, indexed by
+     * BitBoard.H and BitBoard.V
+     */
+    public long[] getTimes() {
+        return times;
+    }
+
+    /**
+     *
+     * @return why the last move was illegal, or null if every move was legal
+     */
+    public String getIllegalMove() {
+        return illegalMove;
+    }
+
+    /**
+     *
+     * @return the starting board, as text
+     */
+    public String getStartingBoard() {
+        return startingBoard;
+    }
+
+    /**
+     *
+     * @return the board size
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     *
+     * @return the seed the starting board came from
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
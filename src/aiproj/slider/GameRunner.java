@@ -0,0 +1,180 @@
+package aiproj.slider;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * GameRunner class for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Plays a game between two players by the Referee's rules, validating every
+ * move on the Referee's board, and returns the result (see GameResult)
+ * without printing anything. Listeners (see GameListener) can follow the
+ * game; Referee.main prints it with one.
+ *
+ * A game's blocked squares come from its seed, so the same seed always
+ * gives the same starting board.
+ *
+ * In fast mode, moves are validated on a Referee.FastBoard instead, which
+ * rejects the same moves without scanning the board for passes or
+ * allocating on each move, for training and tournaments that play many
+ * games.
+ *
+ * See comments.txt for details
+ *
+ */
+public class GameRunner {
+
+    // Games still going after this many turns are abandoned, as in the Referee
+    public static final int MAX_TURNS = 350;
+
+    private final ArrayList<GameListener> listeners = new ArrayList<GameListener>();
+    private boolean fast;
+
+    /**
+     *  Adds a listener to follow every game played
+     * @param listener the listener
+     */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     *  Chooses the board moves are validated on
+     * @param fast true for a Referee.FastBoard, false for the Referee's own board
+     */
+    public void setFast(boolean fast) {
+        this.fast = fast;
+    }
+
+    /**
+     *  Plays a game from a starting board chosen by a seed
+     * @param h the H player, not yet initialised
+     * @param v the V player, not yet initialised
+     * @param n the board size
+     * @param seed the seed for the blocked squares
+     * @return the result
+     */
+    public GameResult play(SliderPlayer h, SliderPlayer v, int n, long seed) {
+        Referee.Board board = new Referee.Board(n, new Random(seed));
+        if (fast) {
+            return play(h, v, new Referee.FastBoard(Input.readBitBoard(n, board.toString())), seed);
+        }
+        return play(h, v, board, seed);
+    }
+
+    /**
+     *  Plays a game from any position, H to move
+     * @param h the H player, not yet initialised
+     * @param v the V player, not yet initialised
+     * @param start the starting board
+     * @param seed the seed the starting board came from, kept in the result
+     * @return the result
+     */
+    public GameResult play(SliderPlayer h, SliderPlayer v, SliderBoard start, long seed) {
+        return play(h, v, fast ? new Referee.FastBoard(start) : new Referee.Board(start), seed);
+    }
+
+    /**
+     *  Plays a game on a board that validates moves by the Referee's rules
+     * @param h the H player, not yet initialised
+     * @param v the V player, not yet initialised
+     * @param board the starting board, which is played on
+     * @param seed the seed the starting board came from
+     * @return the result
+     */
+    private GameResult play(SliderPlayer h, SliderPlayer v, Referee.Rules board, long seed) {
+        SliderPlayer[] players = {h, v};
+        String start = board.toString();
+        CPUTimer timer = new CPUTimer();
+        long[] times = new long[]{0, 0};
+
+        timer.start();
+        players[BitBoard.H].init(board.size(), start, 'H');
+        times[BitBoard.H] += timer.clock();
+
+        timer.start();
+        players[BitBoard.V].init(board.size(), start, 'V');
+        times[BitBoard.V] += timer.clock();
+
+        for (GameListener listener : listeners) {
+            listener.gameStarted(start);
+        }
+
+        ArrayList<Move> moves = new ArrayList<Move>();
+        String illegalMove = null;
+        int turn = BitBoard.H;
+        Move previousMove = null;
+
+        while (!board.finished() && moves.size() < MAX_TURNS) {
+            timer.start();
+            players[turn].update(previousMove);
+            previousMove = players[turn].move();
+            times[turn] += timer.clock();
+            moves.add(previousMove);
+
+            try {
+                board.move(previousMove, Referee.Player.pieces[turn]);
+            } catch (Referee.IllegalMoveException e) {
+                // the game ends, and players[turn] loses
+                illegalMove = e.getMessage();
+                break;
+            }
+
+            if (!listeners.isEmpty()) {
+                String text = board.toString();
+                for (GameListener listener : listeners) {
+                    listener.moveMade(turn, previousMove, text);
+                }
+            }
+            turn = Referee.Player.other(turn);
+        }
+
+        // both players are told about the final move
+        players[BitBoard.H].update(previousMove);
+        players[BitBoard.V].update(previousMove);
+
+        String winner = board.finished() ? board.winnerType() : null;
+        GameResult result = new GameResult(board.size(), seed, start, winner, moves, times, illegalMove);
+        for (GameListener listener : listeners) {
+            listener.gameFinished(result);
+        }
+        return result;
+    }
+
+    /**
+     *  A starting board with blocked squares chosen by a seed, followed by
+     *  random legal moves, so that games with the same blocked squares don't
+     *  all play out the same way between players that always choose the
+     *  same move. Pieces never leave the board, so the game can't end here.
+     * @param n the board size
+     * @param seed the seed for the blocked squares and the moves
+     * @param plies the number of moves, H first; an even number leaves H to move
+     * @return the board after the moves
+     */
+    public static BitBoard opening(int n, long seed, int plies) {
+        Random rng = new Random(seed);
+        BitBoard board = new BitBoard(Input.readBoard(n, new Referee.Board(n, rng).toString()));
+        int[] moves = new int[3 * n * n];
+        for (int ply = 0; ply < plies; ply++) {
+            int player = ply % 2 == 0 ? BitBoard.H : BitBoard.V;
+            int count = board.generateMoves(player, moves, 0);
+            int move = moves[rng.nextInt(Math.max(1, count))];
+            if (count > 0 && !exits(move, n)) {
+                board.makeMove(player, move);
+            }
+        }
+        return board;
+    }
+
+    /**
+     *  Whether a packed move takes a piece off the board
+     * @param move the packed move
+     * @param n the board size
+     * @return true if it does
+     */
+    private static boolean exits(int move, int n) {
+        return (PackedMove.direction(move) == Move.Direction.RIGHT && PackedMove.x(move) == n - 1)
+                || (PackedMove.direction(move) == Move.Direction.UP && PackedMove.y(move) == n - 1);
+    }
+}
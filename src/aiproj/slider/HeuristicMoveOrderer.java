@@ -0,0 +1,121 @@
+package aiproj.slider;
+
+import java.util.Arrays;
+
+/**
+ * HeuristicMoveOrderer class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Orders moves as: moves off the board, then the killer moves for the ply
+ * (the last two moves that caused a cutoff at that ply), then other forward
+ * moves, then sideways moves. Within each group, moves that have caused
+ * more cutoffs (the history heuristic) come first.
+ *
+ * See comments.txt for details
+ *
+ */
+public class HeuristicMoveOrderer implements MoveOrderer {
+
+    private static final int EXIT_SCORE = 4000000;
+    private static final int KILLER_SCORE = 3000000;
+    private static final int FORWARD_SCORE = 2000000;
+
+    // History scores are kept below this so they never cross groups
+    private static final int HISTORY_LIMIT = 1000000;
+
+    private final int[][] killers = new int[Search.MAX_PLY][2];
+
+    // Indexed by player and packed move (square and direction)
+    private final int[][] history = new int[2][256];
+
+    private int length;
+
+    /**
+     *  Construct a move orderer
+     */
+    public HeuristicMoveOrderer() {
+        for (int[] slots : killers) {
+            Arrays.fill(slots, PackedMove.NONE);
+        }
+    }
+
+    @Override
+    public void start(int length) {
+        this.length = length;
+        for (int[] slots : killers) {
+            Arrays.fill(slots, PackedMove.NONE);
+        }
+
+        // older history counts for less
+        for (int[] scores : history) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= 2;
+            }
+        }
+    }
+
+    @Override
+    public int score(int move, int player, int ply) {
+        int score = history[player][move];
+        if (isExit(move, player)) {
+            return EXIT_SCORE + score;
+        }
+        if (move == killers[ply][0]) {
+            return KILLER_SCORE + 1;
+        }
+        if (move == killers[ply][1]) {
+            return KILLER_SCORE;
+        }
+        if (isForward(move, player)) {
+            return FORWARD_SCORE + score;
+        }
+        return score;
+    }
+
+    @Override
+    public void cutoff(int move, int player, int ply, int depth) {
+        // exits are always tried first anyway
+        if (isExit(move, player)) {
+            return;
+        }
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        history[player][move] += depth * depth;
+        if (history[player][move] >= HISTORY_LIMIT) {
+            for (int[] scores : history) {
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] /= 2;
+                }
+            }
+        }
+    }
+
+    /**
+     *  Whether a move is towards the player's goal edge
+     * @param move the packed move
+     * @param player the player
+     * @return true for forward moves
+     */
+    private static boolean isForward(int move, int player) {
+        Move.Direction d = PackedMove.direction(move);
+        return player == BitBoard.H ? d == Move.Direction.RIGHT : d == Move.Direction.UP;
+    }
+
+    /**
+     *  Whether a move takes a piece off the board
+     * @param move the packed move
+     * @param player the player
+     * @return true for moves off the board
+     */
+    private boolean isExit(int move, int player) {
+        if (!isForward(move, player)) {
+            return false;
+        }
+        int square = PackedMove.square(move);
+        int position = player == BitBoard.H ? BitBoard.squareX(square) : BitBoard.squareY(square);
+        return position == length - 1;
+    }
+}
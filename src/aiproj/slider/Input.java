@@ -10,10 +10,9 @@
 package aiproj.slider;
 
 
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.util.ArrayList;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 
 /**
  * Input class for a player for the game "Slider"
@@ -29,91 +28,133 @@ public final class Input {
 
     /**
      * SWAPPED i AND j TO REFLECT CHANGE IN PART B
-     * Reads the board from input
+     * Reads the board from input, in one pass over its characters
      * @param N size of NxN board
+     * @param strInput the board, one character per cell separated by whitespace
      * @return the board as a NxN array of strings
+     * @throws IllegalArgumentException if the board has a bad character or too few cells
      */
     public static Board readBoard(int N, String strInput) {
 
-        // Use string input instead of System input
-        Scanner read = new Scanner(strInput);
-
         Board board = new Board(N);
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
+        int cell = 0;
+        for (int c = 0; c < strInput.length() && cell < N * N; c++) {
+            String cellType = cellType(strInput.charAt(c));
+            if (cellType == null) {
+                continue;
+            }
 
-                // Create tile and add to board
-                Tile new_tile = new Tile(read.next(), i, j, N);
-                board.getTiles()[i][j] = new_tile;
+            // Create tile and add to board
+            int i = cell / N;
+            int j = cell % N;
+            Tile new_tile = new Tile(cellType, i, j, N);
+            board.getTiles()[i][j] = new_tile;
+            cell++;
 
-                // If it's a player tile then add to appropriate list
-                if (new_tile.getCellType().equals(Tile.PLAYER_H)) {
-                    board.addHTile(new_tile);
-                }
-                else if (new_tile.getCellType().equals(Tile.PLAYER_V)) {
-                    board.addVTile(new_tile);
-                }
+            // If it's a player tile then add to appropriate list
+            if (cellType == Tile.PLAYER_H) {
+                board.addHTile(new_tile);
+            }
+            else if (cellType == Tile.PLAYER_V) {
+                board.addVTile(new_tile);
             }
         }
+        checkCells(N, cell);
+        board.rehash();
         return board;
     }
 
     /**
-     * Reads in a weight file
-     * @param weights_file name of the weight file
-     * @return arraylist of weights
+     * Reads the board from input straight into a bitboard, in one pass over
+     * its characters
+     * @param N size of NxN board
+     * @param strInput the board, one character per cell separated by whitespace
+     * @return the board
+     * @throws IllegalArgumentException if the board has a bad character or too few cells
      */
-    public static ArrayList<Double> readWeightFile(String weights_file) {
-
-        FileReader in = null;
-        String str = "";
-        ArrayList<Double> file_weights = new ArrayList<Double>();
-
-        try {
-            in = new FileReader(weights_file);
-            int chr;
-            while ((chr = in.read()) != -1) {
-                //System.out.println((char)c);
-                str = str + (char) chr;
+    public static BitBoard readBitBoard(int N, String strInput) {
+        long hPieces = 0, vPieces = 0, blocked = 0;
+        int cell = 0;
+        for (int c = 0; c < strInput.length() && cell < N * N; c++) {
+            char chr = strInput.charAt(c);
+            if (cellType(chr) == null) {
+                continue;
+            }
+            long bit = 1L << BitBoard.square(cell % N, N - 1 - cell / N);
+            if (chr == 'H') {
+                hPieces |= bit;
+            }
+            else if (chr == 'V') {
+                vPieces |= bit;
             }
-            String[] weightsString = str.split(" ");
-            for (int i = 0; i < weightsString.length; i++) {
-                file_weights.add(Double.parseDouble(weightsString[i]));
+            else if (chr == 'B') {
+                blocked |= bit;
             }
-            in.close();
+            cell++;
         }
-        catch ( Exception e) {
-            System.out.println("FILE READ FAIL");
-            System.exit(0);
+        checkCells(N, cell);
+        return new BitBoard(N, hPieces, vPieces, blocked);
+    }
+
+    /**
+     * The cell type of a board character
+     * @param chr the character
+     * @return the cell type, or null for whitespace
+     * @throws IllegalArgumentException for any other character
+     */
+    static String cellType(char chr) {
+        switch (chr) {
+            case 'H': return Tile.PLAYER_H;
+            case 'V': return Tile.PLAYER_V;
+            case 'B': return Tile.BLOCKED;
+            case '+': return Tile.EMPTY;
+            default:
+                if (Character.isWhitespace(chr)) {
+                    return null;
+                }
+                throw new IllegalArgumentException("bad board character: '" + chr + "'");
         }
+    }
 
-        return file_weights;
+    /**
+     * Checks that a whole board was read
+     * @param N size of NxN board
+     * @param cells the number of cells read
+     */
+    private static void checkCells(int N, int cells) {
+        if (cells < N * N) {
+            throw new IllegalArgumentException("board has " + cells + " cells, expected " + N * N);
+        }
     }
 
     /**
-     *  Updates a weights file based on a set of new weights
+     * Reads in a weight file (see WeightStore)
+     * @param weights_file name of the weight file
+     * @return array of weights
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public static double[] readWeightFile(String weights_file) {
+        try {
+            return WeightStore.read(Paths.get(weights_file));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("can't read weights from " + weights_file, e);
+        }
+    }
+
+    /**
+     *  Updates a weights file based on a set of new weights, replacing it
+     *  all at once (see WeightStore)
      * @param weights the new weights
      * @param weights_file name of the weights file
+     * @throws UncheckedIOException if the file can't be written
      */
-    public static void updateWeightFile(ArrayList<Double> weights, String weights_file) {
-
-        FileWriter out = null;
-        String str = "";
-
+    public static void updateWeightFile(double[] weights, String weights_file) {
         try {
-            out = new FileWriter(weights_file);
-
-            for (int i = 0; i < weights.size(); i++) {
-                str += Double.toString(weights.get(i));
-                str += " ";
-            }
-            out.write(str);
-            out.close();
-
+            WeightStore.writeText(weights, Paths.get(weights_file));
         }
-        catch ( Exception e) {
-            System.out.println("FILE READ FAIL");
-            System.exit(0);
+        catch (IOException e) {
+            throw new UncheckedIOException("can't write weights to " + weights_file, e);
         }
     }
 }
@@ -0,0 +1,176 @@
+package aiproj.slider;
+
+/**
+ * MatchScore class for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Wins, draws and losses of one player against another, with the Elo
+ * difference they suggest and a sequential probability ratio test (SPRT)
+ * for deciding, as early as possible, whether the player is stronger.
+ *
+ * A score s (wins plus half the draws, per game) is an Elo difference of
+ * -400 log10(1 / s - 1). The SPRT compares the hypotheses that the
+ * difference is elo0 or elo1 using the normal approximation to the score's
+ * distribution; the log likelihood ratio is
+ *
+ *   (s1 - s0) (2 s - s0 - s1) N / (2 variance)
+ *
+ * where s0 and s1 are the scores expected under each hypothesis. The test
+ * accepts elo1 once this passes log((1 - beta) / alpha), and elo0 once it
+ * falls below log(beta / (1 - alpha)).
+ *
+ * See comments.txt for details
+ *
+ */
+public class MatchScore {
+
+    // z for a 95% confidence interval
+    private static final double Z95 = 1.959964;
+
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     *  Counts a game
+     * @param score 1 for a win, 0.5 for a draw, 0 for a loss
+     */
+    public void add(double score) {
+        if (score > 0.5) {
+            wins++;
+        }
+        else if (score < 0.5) {
+            losses++;
+        }
+        else {
+            draws++;
+        }
+    }
+
+    /**
+     *
+     * @return the number of games counted
+     */
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     *
+     * @return the mean score per game, between 0 and 1
+     */
+    public double score() {
+        return (wins + 0.5 * draws) / getGames();
+    }
+
+    /**
+     *
+     * @return the variance of a single game's score
+     */
+    public double variance() {
+        double s = score();
+        return (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s)
+                / getGames();
+    }
+
+    /**
+     *
+     * @return the Elo difference the score suggests
+     */
+    public double elo() {
+        return elo(score());
+    }
+
+    /**
+     *
+     * @return half the width of the 95% confidence interval of the Elo difference
+     */
+    public double eloError() {
+        double margin = Z95 * Math.sqrt(variance() / getGames());
+        return (elo(score() + margin) - elo(score() - margin)) / 2;
+    }
+
+    /**
+     *  The log likelihood ratio of the Elo difference being elo1 rather than elo0
+     * @param elo0 the Elo difference if the player isn't stronger
+     * @param elo1 the Elo difference if the player is stronger
+     * @return the log likelihood ratio
+     */
+    public double llr(double elo0, double elo1) {
+        double variance = variance();
+        if (getGames() == 0 || variance == 0) {
+            return 0;
+        }
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return (s1 - s0) * (2 * score() - s0 - s1) * getGames() / (2 * variance);
+    }
+
+    /**
+     *  The SPRT's decision so far
+     * @param elo0 the Elo difference if the player isn't stronger
+     * @param elo1 the Elo difference if the player is stronger
+     * @param alpha the chance of accepting elo1 when elo0 is true
+     * @param beta the chance of accepting elo0 when elo1 is true
+     * @return 1 to accept elo1, -1 to accept elo0, or 0 to keep playing
+     */
+    public int sprt(double elo0, double elo1, double alpha, double beta) {
+        double llr = llr(elo0, elo1);
+        if (llr >= Math.log((1 - beta) / alpha)) {
+            return 1;
+        }
+        if (llr <= Math.log(beta / (1 - alpha))) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     *  The expected score of a player with an Elo advantage
+     * @param elo the Elo difference
+     * @return the score, between 0 and 1
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     *  The Elo difference behind a score, kept finite for scores of 0 and 1
+     * @param score the score
+     * @return the Elo difference
+     */
+    public static double elo(double score) {
+        double s = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / s - 1);
+    }
+
+    /**
+     *
+     * @return the number of wins
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     *
+     * @return the number of draws
+     */
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     *
+     * @return the number of losses
+     */
+    public int getLosses() {
+        return losses;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("+%d =%d -%d, Elo %+.1f +/- %.1f",
+                wins, draws, losses, elo(), eloError());
+    }
+}
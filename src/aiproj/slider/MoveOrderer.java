@@ -0,0 +1,39 @@
+package aiproj.slider;
+
+/**
+ * MoveOrderer interface for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Decides the order the Search tries moves in. Moves are packed (see
+ * PackedMove), and players are BitBoard.H or BitBoard.V. The principal
+ * variation and hash moves are always tried first by the Search itself.
+ *
+ * See comments.txt for details
+ *
+ */
+public interface MoveOrderer {
+
+    /**
+     *  Prepare for a new search
+     * @param length length of the board being searched
+     */
+    public void start(int length);
+
+    /**
+     *  Scores a move; moves with higher scores are tried first
+     * @param move the packed move
+     * @param player the player making the move
+     * @param ply plies from the root
+     * @return the score
+     */
+    public int score(int move, int player, int ply);
+
+    /**
+     *  Told when a move causes a beta cutoff
+     * @param move the packed move
+     * @param player the player making the move
+     * @param ply plies from the root
+     * @param depth plies that were left to search
+     */
+    public void cutoff(int move, int player, int ply, int depth);
+}
@@ -0,0 +1,176 @@
+package aiproj.slider;
+
+/**
+ * Notation class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * A compact, one line notation for positions, like FEN in chess. The rows
+ * are written from the top of the board (y = N - 1) down, separated by '/',
+ * with H, V and B for pieces and blocked squares, and a digit for each run
+ * of empty squares. The player to move follows after a space. The board
+ * size is the number of rows. For example, the usual 5x5 starting board
+ * with one blocked square is
+ *
+ *   H4/H4/H1B2/H4/1VVVV H
+ *
+ * See comments.txt for details
+ *
+ */
+public final class Notation {
+
+    private Notation() {
+    }
+
+    /**
+     *  Writes a position in the notation
+     * @param board the board
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @return the position
+     */
+    public static String format(SliderBoard board, int player) {
+        int length = board.getLength();
+        StringBuilder s = new StringBuilder(length * (length + 1) + 2);
+        for (int y = length - 1; y >= 0; y--) {
+            int empty = 0;
+            for (int x = 0; x < length; x++) {
+                String cell = board.getCellType(x, y);
+                if (cell.equals(Tile.EMPTY)) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    s.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                s.append(cell);
+            }
+            if (empty > 0) {
+                s.append((char) ('0' + empty));
+            }
+            s.append(y > 0 ? '/' : ' ');
+        }
+        s.append(player == BitBoard.H ? 'H' : 'V');
+        return s.toString();
+    }
+
+    /**
+     *  Reads the board of a position, in one pass over its characters
+     * @param notation the position
+     * @return the board
+     * @throws IllegalArgumentException if the position isn't valid
+     */
+    public static BitBoard parse(String notation) {
+        int length = length(notation);
+        long hPieces = 0, vPieces = 0, blocked = 0;
+        int x = 0;
+        int y = length - 1;
+
+        for (int c = 0; c < notation.length(); c++) {
+            char chr = notation.charAt(c);
+            if (chr == ' ') {
+                break;
+            }
+            if (chr == '/') {
+                checkRow(notation, x, length);
+                x = 0;
+                y--;
+                continue;
+            }
+            if (chr >= '1' && chr <= '9') {
+                x += chr - '0';
+                continue;
+            }
+            if (x >= length) {
+                throw new IllegalArgumentException("row too long in position: " + notation);
+            }
+            long bit = 1L << BitBoard.square(x++, y);
+            switch (chr) {
+                case 'H': hPieces |= bit; break;
+                case 'V': vPieces |= bit; break;
+                case 'B': blocked |= bit; break;
+                default:
+                    throw new IllegalArgumentException("bad character '" + chr + "' in position: " + notation);
+            }
+        }
+        checkRow(notation, x, length);
+        return new BitBoard(length, hPieces, vPieces, blocked);
+    }
+
+    /**
+     *  Reads a position into a Board, with its hash key set for the player to move
+     * @param notation the position
+     * @return the board
+     * @throws IllegalArgumentException if the position isn't valid
+     */
+    public static Board parseBoard(String notation) {
+        BitBoard bits = parse(notation);
+        int N = bits.getLength();
+        Board board = new Board(N);
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                Tile tile = new Tile(bits.getCellType(col, N - 1 - row), row, col, N);
+                board.getTiles()[row][col] = tile;
+                if (tile.getCellType() == Tile.PLAYER_H) {
+                    board.addHTile(tile);
+                }
+                else if (tile.getCellType() == Tile.PLAYER_V) {
+                    board.addVTile(tile);
+                }
+            }
+        }
+        board.rehash(sideToMove(notation) == BitBoard.V);
+        return board;
+    }
+
+    /**
+     *  Reads the player to move of a position; H if it's left out
+     * @param notation the position
+     * @return BitBoard.H or BitBoard.V
+     * @throws IllegalArgumentException if the player isn't H or V
+     */
+    public static int sideToMove(String notation) {
+        int space = notation.indexOf(' ');
+        if (space < 0 || space == notation.length() - 1) {
+            return BitBoard.H;
+        }
+        char side = notation.charAt(space + 1);
+        if (side == 'H') {
+            return BitBoard.H;
+        }
+        if (side == 'V') {
+            return BitBoard.V;
+        }
+        throw new IllegalArgumentException("bad player to move in position: " + notation);
+    }
+
+    /**
+     *  The board size of a position: its number of rows
+     * @param notation the position
+     * @return the board size
+     */
+    private static int length(String notation) {
+        int length = 1;
+        for (int c = 0; c < notation.length() && notation.charAt(c) != ' '; c++) {
+            if (notation.charAt(c) == '/') {
+                length++;
+            }
+        }
+        if (length > Board.MAX_SIZE) {
+            throw new IllegalArgumentException("unsupported board size " + length + " in position: " + notation);
+        }
+        return length;
+    }
+
+    /**
+     *  Checks that a row was exactly the width of the board
+     * @param notation the position, for the error message
+     * @param width the width of the row
+     * @param length the board size
+     */
+    private static void checkRow(String notation, int width, int length) {
+        if (width != length) {
+            throw new IllegalArgumentException("row of " + width + " squares on a board of "
+                    + length + " in position: " + notation);
+        }
+    }
+}
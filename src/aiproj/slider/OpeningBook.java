@@ -0,0 +1,116 @@
+package aiproj.slider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * OpeningBook class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Best moves for the first few moves of every starting board, searched
+ * deeply ahead of time by OpeningBookBuilder, so that opening moves cost no
+ * search time at all.
+ *
+ * The book file is a header (MAGIC, VERSION and the number of entries)
+ * followed by entries of a position's hash key (see Zobrist) and its packed
+ * move (see PackedMove), sorted by key. It is memory-mapped rather than
+ * read, and looked up by binary search, so opening it is almost free.
+ *
+ * See comments.txt for details
+ *
+ */
+public class OpeningBook {
+
+    public static final String BOOK_FILE = "book.bin";
+
+    public static final int MAGIC = 0x534C4F42;
+    public static final int VERSION = 1;
+
+    // Bytes in the header, and in each entry
+    public static final int HEADER_SIZE = 12;
+    public static final int ENTRY_SIZE = 10;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    /**
+     *  Construct a book from its entries
+     * @param entries the file's contents after the header
+     * @param size the number of entries
+     */
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     *  Memory-maps a book file
+     * @param file the book file
+     * @return the book
+     * @throws IOException if the file can't be read or isn't a book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.limit() < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException(file + " is not an opening book");
+            }
+            int size = map.getInt(8);
+            if ((long) HEADER_SIZE + (long) size * ENTRY_SIZE > map.limit()) {
+                throw new IOException(file + " is truncated");
+            }
+            map.position(HEADER_SIZE);
+            return new OpeningBook(map.slice(), size);
+        }
+    }
+
+    /**
+     *  Opens the book in BOOK_FILE, if there is one
+     * @return the book, or null if there isn't a usable one
+     */
+    public static OpeningBook openDefault() {
+        Path file = Paths.get(BOOK_FILE);
+        try {
+            return file.toFile().isFile() ? open(file) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     *  Looks up the book move for a position
+     * @param key the position's hash key (see Board.getHashKey)
+     * @return the packed move, or PackedMove.NONE if the position isn't in the book
+     */
+    public int probe(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = entries.getLong(mid * ENTRY_SIZE);
+            if (midKey < key) {
+                low = mid + 1;
+            }
+            else if (midKey > key) {
+                high = mid - 1;
+            }
+            else {
+                return entries.getShort(mid * ENTRY_SIZE + 8) & 0xFFFF;
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     *
+     * @return the number of positions in the book
+     */
+    public int size() {
+        return size;
+    }
+}
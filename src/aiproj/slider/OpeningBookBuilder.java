@@ -0,0 +1,198 @@
+package aiproj.slider;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * OpeningBookBuilder class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Writes an opening book (see OpeningBook). Run it with
+ *
+ *   java aiproj.slider.OpeningBookBuilder book.bin plies depth N...
+ *
+ * Every board starts the same apart from up to two blocked squares, placed
+ * the way the Referee places them, so there are only a few dozen starting
+ * boards of each size. For each one, and for each side, the book player's
+ * moves are searched to a fixed depth and followed, and every reply the
+ * other side could make is followed, up to the given number of plies.
+ *
+ * See comments.txt for details
+ *
+ */
+public class OpeningBookBuilder {
+
+    private static final int TABLE_BITS = 22;
+
+    private final int plies;
+    private final TranspositionTable table;
+    private final SearchDriver driver;
+
+    // Book moves by position hash key, sorted by key as the file needs
+    private final TreeMap<Long, Integer> book = new TreeMap<Long, Integer>();
+
+    /**
+     *  Construct a book builder
+     * @param weights the weights to search with
+     * @param depth the depth each book move is searched to
+     * @param plies the number of plies from the start to include
+     */
+    public OpeningBookBuilder(double[] weights, int depth, int plies) {
+        this.plies = plies;
+        this.table = new TranspositionTable(TABLE_BITS);
+        Search search = new Search(new Evaluator(weights), table);
+        this.driver = new SearchDriver(search, SearchDriver.UNLIMITED, depth);
+    }
+
+    /**
+     *  Adds the openings of every starting board of a size
+     * @param n the board size
+     */
+    public void addSize(int n) {
+        for (long blocked : layouts(n)) {
+            Board start = startingBoard(n, blocked);
+
+            // the search scores leaves for the player at the root, and the
+            // evaluation isn't symmetric, so table entries from one side's
+            // searches mustn't be used by the other's
+            table.clear();
+            add(start, Tile.PLAYER_H, Tile.PLAYER_H, 0);
+            table.clear();
+            add(start, Tile.PLAYER_H, Tile.PLAYER_V, 0);
+        }
+    }
+
+    /**
+     *  Adds a position and the positions that follow it
+     * @param board the board, which is restored before returning
+     * @param turn the cell type of the player to move
+     * @param bookPlayer the cell type of the player the book moves are for
+     * @param ply plies from the starting board
+     */
+    private void add(Board board, String turn, String bookPlayer, int ply) {
+        if (ply >= plies || board.getHTiles().isEmpty() || board.getVTiles().isEmpty()) {
+            return;
+        }
+        String next = Search.other(turn);
+
+        if (turn.equals(bookPlayer)) {
+            Integer known = book.get(board.getHashKey());
+            int move = known != null ? known : driver.findMove(board, turn).getBestMove();
+            book.put(board.getHashKey(), move);
+
+            UndoRecord undo = board.makeMove(move, turn);
+            add(board, next, bookPlayer, ply + 1);
+            board.unmakeMove(undo);
+            return;
+        }
+
+        int[] moves = new int[3 * board.getLength() * board.getLength()];
+        int count = board.generateMoves(turn, Board.FORWARD_MOVES, moves, 0);
+        count += board.generateMoves(turn, Board.SIDEWAYS_MOVES, moves, count);
+        if (count == 0) {
+            moves[count++] = PackedMove.NONE;
+        }
+        for (int i = 0; i < count; i++) {
+            UndoRecord undo = board.makeMove(moves[i], turn);
+            add(board, next, bookPlayer, ply + 1);
+            board.unmakeMove(undo);
+        }
+    }
+
+    /**
+     *  Writes the book
+     * @param file the book file
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(book.size());
+            for (Map.Entry<Long, Integer> entry : book.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeShort(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the number of positions in the book so far
+     */
+    public int size() {
+        return book.size();
+    }
+
+    /**
+     *  Every arrangement of blocked squares the Referee can choose
+     * @param n the board size
+     * @return masks of blocked squares (see BitBoard)
+     */
+    public static Set<Long> layouts(int n) {
+        Set<Long> layouts = new LinkedHashSet<Long>();
+        layouts.add(0L);
+        for (int i = 1; i < n - 1; i++) {
+            for (int j = 1; j < n - 1; j++) {
+                layouts.add(bit(i, j));
+                layouts.add(bit(i, i) | bit(j, j));
+                layouts.add(bit(i, j) | bit(j, i));
+            }
+        }
+        return layouts;
+    }
+
+    /**
+     *  A starting board
+     * @param n the board size
+     * @param blocked mask of blocked squares
+     * @return the board, H to move
+     */
+    public static Board startingBoard(int n, long blocked) {
+        BitBoard board = new BitBoard(n, 0, 0, blocked);
+        for (int k = 1; k < n; k++) {
+            board.setCellType(0, k, Tile.PLAYER_H);
+            board.setCellType(k, 0, Tile.PLAYER_V);
+        }
+        return Input.readBoard(n, board.toString());
+    }
+
+    /**
+     * @param x x position
+     * @param y y position
+     * @return the mask of the square
+     */
+    private static long bit(int x, int y) {
+        return 1L << BitBoard.square(x, y);
+    }
+
+    /**
+     *  Builds a book with the weights in weights.txt
+     * @param args book file, plies, depth, then the board sizes
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: java aiproj.slider.OpeningBookBuilder book.bin plies depth N...");
+            System.exit(1);
+        }
+        int plies = Integer.parseInt(args[1]);
+        int depth = Integer.parseInt(args[2]);
+        double[] weights = WeightStore.read(Paths.get(TDLeafDaveHugo.WEIGHTS_FILE));
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(weights, depth, plies);
+        for (int i = 3; i < args.length; i++) {
+            builder.addSize(Integer.parseInt(args[i]));
+            System.out.println("N = " + args[i] + ": " + builder.size() + " positions");
+        }
+        builder.write(Paths.get(args[0]));
+    }
+}
@@ -0,0 +1,131 @@
+package aiproj.slider;
+
+/**
+ * PackedMove class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Moves packed into an int as (square << 2) | direction, where square is a
+ * BitBoard square index and direction is a Move.Direction ordinal. Every
+ * move on a board of up to Board.MAX_SIZE fits in 8 bits.
+ *
+ * Search, the transposition table and principal variations all use packed
+ * moves; they are only turned into Move objects for the Referee, and those
+ * come from a table built once rather than being allocated per move.
+ *
+ * See comments.txt for details
+ *
+ */
+public final class PackedMove {
+
+    // No move, or a pass
+    public static final int NONE = 0xFFFF;
+
+    // Every packed move is below this
+    public static final int LIMIT = 256;
+
+    private static final Move.Direction[] DIRECTIONS = Move.Direction.values();
+
+    // Move objects for every packed move on the largest board
+    private static final Move[] MOVES = new Move[LIMIT];
+
+    static {
+        for (int y = 0; y < Board.MAX_SIZE; y++) {
+            for (int x = 0; x < Board.MAX_SIZE; x++) {
+                for (Move.Direction d : DIRECTIONS) {
+                    MOVES[of(x, y, d)] = new Move(x, y, d);
+                }
+            }
+        }
+    }
+
+    private PackedMove() {
+    }
+
+    /**
+     *  Packs a move
+     * @param square the square of the moving piece (see BitBoard.square)
+     * @param d the direction
+     * @return the packed move
+     */
+    public static int of(int square, Move.Direction d) {
+        return (square << 2) | d.ordinal();
+    }
+
+    /**
+     *  Packs a move
+     * @param x x position of the moving piece
+     * @param y y position of the moving piece
+     * @param d the direction
+     * @return the packed move
+     */
+    public static int of(int x, int y, Move.Direction d) {
+        return of(BitBoard.square(x, y), d);
+    }
+
+    /**
+     *  Packs a Move object
+     * @param move the move, or null for a pass
+     * @return the packed move, or NONE for a pass
+     */
+    public static int fromMove(Move move) {
+        if (move == null) {
+            return NONE;
+        }
+        return of(move.i, move.j, move.d);
+    }
+
+    /**
+     *  Unpacks a move into a Move object, without allocating
+     * @param move the packed move, or NONE for a pass
+     * @return the (shared) move, or null for a pass
+     */
+    public static Move toMove(int move) {
+        if (move == NONE) {
+            return null;
+        }
+        return MOVES[move];
+    }
+
+    /**
+     * @param move a packed move
+     * @return the square the move starts from
+     */
+    public static int square(int move) {
+        return move >>> 2;
+    }
+
+    /**
+     * @param move a packed move
+     * @return the x position the move starts from
+     */
+    public static int x(int move) {
+        return BitBoard.squareX(square(move));
+    }
+
+    /**
+     * @param move a packed move
+     * @return the y position the move starts from
+     */
+    public static int y(int move) {
+        return BitBoard.squareY(square(move));
+    }
+
+    /**
+     * @param move a packed move
+     * @return the direction of the move
+     */
+    public static Move.Direction direction(int move) {
+        return DIRECTIONS[move & 3];
+    }
+
+    /**
+     * @param move a packed move, or NONE
+     * @return the move as text, as Move.toString would give it
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "pass";
+        }
+        return toMove(move).toString();
+    }
+}
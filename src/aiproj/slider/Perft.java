@@ -0,0 +1,606 @@
+package aiproj.slider;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Perft class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Counts the leaves of the game tree to a fixed depth, to check move
+ * generation and measure its speed. Run it with
+ *
+ *   java aiproj.slider.Perft depth ["position"] [divide] [check]
+ *
+ * where the position is in Notation (the 5x5 starting board by default).
+ * A player with no moves passes, which counts as a move, and a line ends
+ * early when a player has no pieces left or both players pass in a row;
+ * such finished games count as one leaf.
+ *
+ * Each depth up to the given one is counted with both the player's Board
+ * and a BitBoard, which must agree, and nodes per second are reported for
+ * each. With divide, the count is broken down by root move. With check,
+ * every position is also checked against the Referee: the moves from
+ * Board.generateMoves, Board.getAllMoves and BitBoard.generateMoves must
+ * be exactly the moves Referee.Board accepts, each move must leave the same
+ * board, and unmaking it must restore the board and its hash key. The
+ * Board's BitBoard must match its tiles, its hash key must match one
+ * computed from scratch, and the evaluation must match one worked out from
+ * the tiles, with random weights so that every feature counts. Races (see
+ * BitBoard.raceResult) and positions in the board's tablebase, if there is
+ * one in tablebases/, are solved exhaustively to SOLVE_PLIES, which must
+ * give the same result; start from a position near the end of a game, such
+ * as "VV3/V4/5/3HH/3HH H", to meet some.
+ *
+ * See comments.txt for details
+ *
+ */
+public class Perft {
+
+    public static final String START = "H4/H4/H4/H4/1VVVV H";
+
+    private static final Move.Direction[] DIRECTIONS = Move.Direction.values();
+
+    // Seed for the weights the evaluation is checked with
+    private static final long SEED = 1;
+
+    // How far ahead races and tablebase entries are solved exhaustively to
+    // check them
+    public static final int SOLVE_PLIES = 7;
+
+    private final boolean check;
+    private final Evaluator evaluator;
+    private Tablebase tablebase;
+
+    // Move buffers for each ply, so counting doesn't allocate, and for
+    // each ply of a solve
+    private final int[][] moves;
+    private final int[][] solveMoves = new int[SOLVE_PLIES + 1][3 * Board.MAX_SIZE * Board.MAX_SIZE];
+
+    private long checked;
+    private long races;
+    private long entries;
+
+    /**
+     *  Construct a perft counter
+     * @param maxDepth the deepest count that will be made
+     * @param check whether to check every position against the Referee
+     */
+    public Perft(int maxDepth, boolean check) {
+        this.check = check;
+        this.moves = new int[maxDepth + 1][3 * Board.MAX_SIZE * Board.MAX_SIZE];
+
+        Random random = new Random(SEED);
+        double[] weights = new double[Evaluator.NUM_FEATURES];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextGaussian();
+        }
+        this.evaluator = new Evaluator(weights);
+    }
+
+    /**
+     *  Counts leaves with the player's Board
+     * @param board the board, which is restored before returning
+     * @param player the cell type of the player to move
+     * @param depth the depth to count to
+     * @param passes the number of passes just made in a row
+     * @return the number of leaves
+     */
+    public long count(Board board, String player, int depth, int passes) {
+        if (depth == 0 || finished(board, passes)) {
+            return 1;
+        }
+        int[] buffer = moves[depth];
+        int count = generate(board, player, buffer);
+        if (check) {
+            check(board, player, buffer, count);
+        }
+
+        String next = Search.other(player);
+        if (count == 0) {
+            UndoRecord undo = board.makeMove(PackedMove.NONE, player);
+            long leaves = count(board, next, depth - 1, passes + 1);
+            board.unmakeMove(undo);
+            return leaves;
+        }
+        long leaves = 0;
+        for (int i = 0; i < count; i++) {
+            UndoRecord undo = board.makeMove(buffer[i], player);
+            leaves += count(board, next, depth - 1, 0);
+            board.unmakeMove(undo);
+        }
+        return leaves;
+    }
+
+    /**
+     *  Counts leaves with a BitBoard
+     * @param board the board, which is restored before returning
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @param depth the depth to count to
+     * @param passes the number of passes just made in a row
+     * @return the number of leaves
+     */
+    public long count(BitBoard board, int player, int depth, int passes) {
+        if (depth == 0 || board.getHPieces() == 0 || board.getVPieces() == 0 || passes > 1) {
+            return 1;
+        }
+        int[] buffer = moves[depth];
+        int count = board.generateMoves(player, buffer, 0);
+        if (count == 0) {
+            return count(board, 1 - player, depth - 1, passes + 1);
+        }
+        long leaves = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(player, buffer[i]);
+            leaves += count(board, 1 - player, depth - 1, 0);
+            board.unmakeMove(player, buffer[i]);
+        }
+        return leaves;
+    }
+
+    /**
+     *  Counts the leaves after each root move, with the player's Board
+     * @param board the board, which is restored before returning
+     * @param player the cell type of the player to move
+     * @param depth the depth to count to
+     * @return the count for each root move, and a pass if there are none
+     */
+    public ArrayList<String> divide(Board board, String player, int depth) {
+        ArrayList<String> lines = new ArrayList<String>();
+        int[] root = new int[3 * Board.MAX_SIZE * Board.MAX_SIZE];
+        int count = generate(board, player, root);
+        if (count == 0) {
+            root[count++] = PackedMove.NONE;
+        }
+        for (int i = 0; i < count; i++) {
+            UndoRecord undo = board.makeMove(root[i], player);
+            int passes = root[i] == PackedMove.NONE ? 1 : 0;
+            long leaves = count(board, Search.other(player), depth - 1, passes);
+            board.unmakeMove(undo);
+            lines.add(PackedMove.toString(root[i]) + ": " + leaves);
+        }
+        return lines;
+    }
+
+    /**
+     *  Generates every legal move with the player's Board, as the search does
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @param buffer the buffer to write packed moves into
+     * @return the number of moves
+     */
+    private static int generate(Board board, String player, int[] buffer) {
+        int count = board.generateMoves(player, Board.FORWARD_MOVES, buffer, 0);
+        return count + board.generateMoves(player, Board.SIDEWAYS_MOVES, buffer, count);
+    }
+
+    /**
+     * @param board the board
+     * @param passes the number of passes just made in a row
+     * @return true if the game is over
+     */
+    private static boolean finished(Board board, int passes) {
+        return board.getHTiles().isEmpty() || board.getVTiles().isEmpty() || passes > 1;
+    }
+
+    /**
+     *  Checks the moves of a position against every other move generator
+     *  and the Referee
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @param generated the moves from Board.generateMoves
+     * @param count the number of moves
+     * @throws IllegalStateException describing the first disagreement
+     */
+    private void check(Board board, String player, int[] generated, int count) {
+        checked++;
+        int[] expected = sorted(generated, count);
+
+        // the Move lists the original player used
+        ArrayList<Move> all = board.getAllMoves(player);
+        int[] fromList = new int[all.size()];
+        for (int i = 0; i < fromList.length; i++) {
+            fromList[i] = PackedMove.fromMove(all.get(i));
+        }
+        compare(board, player, "getAllMoves", expected, sorted(fromList, fromList.length));
+
+        BitBoard bits = new BitBoard(board);
+        int[] fromBits = new int[generated.length];
+        int bitCount = bits.generateMoves(BitBoard.player(player), fromBits, 0);
+        compare(board, player, "BitBoard", expected, sorted(fromBits, bitCount));
+
+        // every move of every piece that the Referee accepts
+        Referee.Piece piece = Referee.Player.pieces[BitBoard.player(player)];
+        int[] accepted = new int[generated.length];
+        int legal = 0;
+        int length = board.getLength();
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < length; y++) {
+                if (!board.getCellType(x, y).equals(player)) {
+                    continue;
+                }
+                for (Move.Direction d : DIRECTIONS) {
+                    Referee.Board referee = new Referee.Board(board);
+                    try {
+                        referee.move(new Move(x, y, d), piece);
+                    } catch (Referee.IllegalMoveException e) {
+                        continue;
+                    }
+                    int move = PackedMove.of(x, y, d);
+                    accepted[legal++] = move;
+                    checkMove(board, player, move, referee);
+                }
+            }
+        }
+        compare(board, player, "Referee", expected, sorted(accepted, legal));
+
+        // a pass is legal exactly when there are no moves
+        boolean canPass = true;
+        try {
+            new Referee.Board(board).move(null, piece);
+        } catch (Referee.IllegalMoveException e) {
+            canPass = false;
+        }
+        if (canPass != (count == 0)) {
+            throw new IllegalStateException("Referee " + (canPass ? "allows" : "refuses")
+                    + " a pass with " + count + " moves in " + position(board, player));
+        }
+
+        checkPosition(board, player, bits);
+    }
+
+    /**
+     *  Checks that a Board's BitBoard, hash key and evaluation match ones
+     *  worked out from its tiles
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @param bits a BitBoard made from the board's tiles
+     */
+    private void checkPosition(Board board, String player, BitBoard bits) {
+        if (!bits.toString().equals(board.getBitBoard().toString())
+                || bits.pieceCount(BitBoard.H) != board.getHTiles().size()
+                || bits.pieceCount(BitBoard.V) != board.getVTiles().size()) {
+            throw new IllegalStateException("the BitBoard has\n" + board.getBitBoard()
+                    + "but the tiles are " + position(board, player));
+        }
+
+        int side = BitBoard.player(player);
+        long key = Zobrist.hash(board, side == BitBoard.V);
+        if (board.getHashKey() != key) {
+            throw new IllegalStateException("hash key " + Long.toHexString(board.getHashKey())
+                    + " should be " + Long.toHexString(key) + " in " + position(board, player));
+        }
+
+        double[] expected = tileFeatures(board, side);
+        double[] features = Evaluator.features(board, player);
+        if (!Arrays.equals(expected, features)) {
+            throw new IllegalStateException("features " + Arrays.toString(features) + " should be "
+                    + Arrays.toString(expected) + " in " + position(board, player));
+        }
+        double value = evaluator.evaluate(bits, side);
+        if (Math.abs(value - evaluator.value(expected)) > 1e-12
+                || value != evaluator.evaluate(board, player)) {
+            throw new IllegalStateException("evaluation " + value + " should be "
+                    + evaluator.value(expected) + " in " + position(board, player));
+        }
+
+        int race = bits.raceResult(side);
+        if (race != BitBoard.NOT_A_RACE) {
+            races++;
+            checkSolved(board, player, bits, "raceResult", race);
+        }
+
+        int entry = tablebase == null ? 0 : tablebase.probe(board, player);
+        if (entry != 0) {
+            entries++;
+            int plies = Tablebase.distance(entry);
+            switch (Tablebase.result(entry)) {
+                case Tablebase.WIN:  checkSolved(board, player, bits, "the tablebase", plies); break;
+                case Tablebase.LOSS: checkSolved(board, player, bits, "the tablebase", -plies); break;
+                default:             checkSolved(board, player, bits, "the tablebase", 0); break;
+            }
+        }
+    }
+
+    /**
+     *  Checks a result against an exhaustive solve to SOLVE_PLIES
+     * @param board the board, for the message
+     * @param player the cell type of the player to move
+     * @param bits the position, which is restored before returning
+     * @param source what the result came from
+     * @param plies plies until the game ends: positive if the player to
+     * move wins, negative if it loses, 0 for neither
+     */
+    private void checkSolved(Board board, String player, BitBoard bits, String source, int plies) {
+        int expected = Math.abs(plies) <= SOLVE_PLIES ? plies : 0;
+        int solved = solve(bits, BitBoard.player(player), SOLVE_PLIES);
+        if (solved != expected) {
+            throw new IllegalStateException(source + " gives " + plies + " plies but solving to "
+                    + SOLVE_PLIES + " gives " + solved + " in " + position(board, player));
+        }
+    }
+
+    /**
+     *  Solves a position by trying every line of play
+     * @param board the board, which is restored before returning
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @param depth the most plies to look ahead
+     * @return plies until the game ends with best play: positive if the
+     * player to move wins, negative if it loses; 0 if that takes more than
+     * depth plies, or nobody can move
+     */
+    private int solve(BitBoard board, int player, int depth) {
+        if (depth == 0) {
+            return 0;
+        }
+        int[] buffer = solveMoves[depth];
+        int count = board.generateMoves(player, buffer, 0);
+        if (count == 0) {
+            if (!board.hasMoves(1 - player)) {
+                return 0;
+            }
+            board.pass();
+            int result = solve(board, 1 - player, depth - 1);
+            board.pass();
+            return before(result);
+        }
+
+        int win = 0;
+        int loss = 0;
+        boolean lost = true;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(player, buffer[i]);
+            if (board.getPieces(player) == 0) {
+                board.unmakeMove(player, buffer[i]);
+                return 1;
+            }
+            // once a win is found, only look for quicker ones
+            int result = before(solve(board, 1 - player, win > 0 ? win - 2 : depth - 1));
+            board.unmakeMove(player, buffer[i]);
+            if (result > 0) {
+                win = result;
+            }
+            else if (result < 0) {
+                loss = Math.min(loss, result);
+            }
+            else {
+                lost = false;
+            }
+        }
+        if (win > 0) {
+            return win;
+        }
+        return lost ? loss : 0;
+    }
+
+    /**
+     * @param result the result of a position, as solve gives it
+     * @return the result one ply earlier, for the other player
+     */
+    private static int before(int result) {
+        if (result == 0) {
+            return 0;
+        }
+        return result > 0 ? -(result + 1) : 1 - result;
+    }
+
+    /**
+     *  The evaluation features of a board (see Evaluator), counted square by
+     *  square from the tiles
+     * @param board the board
+     * @param player the player (BitBoard.H or BitBoard.V)
+     * @return the features
+     */
+    private static double[] tileFeatures(Board board, int player) {
+        int length = board.getLength();
+        int[] tiles = new int[2];
+        int[] distance = new int[2];
+        int[] forward = new int[2];
+        int[][] atDistance = new int[2][Board.MAX_SIZE];
+        for (int x = 0; x < length; x++) {
+            for (int y = 0; y < length; y++) {
+                int owner = BitBoard.player(board.getCellType(x, y));
+                if (owner < 0) {
+                    continue;
+                }
+                boolean horizontal = owner == BitBoard.H;
+                int d = length - 1 - (horizontal ? x : y);
+                tiles[owner]++;
+                distance[owner] += d;
+                atDistance[owner][d]++;
+                if (d == 0 || board.getCellType(horizontal ? x + 1 : x, horizontal ? y : y + 1)
+                        .equals(Tile.EMPTY)) {
+                    forward[owner]++;
+                }
+            }
+        }
+
+        int o = 1 - player;
+        double[] features = new double[Evaluator.NUM_FEATURES];
+        features[0] = tiles[player] - tiles[o];
+        features[1] = distance[o] - distance[player];
+        features[2] = proportion(forward[player], tiles[player], length)
+                - proportion(forward[o], tiles[o], length);
+        for (int d = 0; d < Board.MAX_SIZE; d++) {
+            features[3 + 2 * d] = atDistance[player][d];
+            features[4 + 2 * d] = atDistance[o][d];
+        }
+        return features;
+    }
+
+    /**
+     * @param forward tiles with a forward move
+     * @param tiles tiles
+     * @param length the board size
+     * @return forward moves per tile, scaled as Evaluator scales them
+     */
+    private static double proportion(int forward, int tiles, int length) {
+        return tiles == 0 ? 0 : (double) forward / tiles * (length - 1);
+    }
+
+    /**
+     *  Checks that a move leaves the same board as the Referee, and that
+     *  unmaking it restores the board
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @param move the packed move
+     * @param referee the Referee's board after the move
+     */
+    private static void checkMove(Board board, String player, int move, Referee.Board referee) {
+        String before = new BitBoard(board).toString();
+        long key = board.getHashKey();
+
+        UndoRecord undo = board.makeMove(move, player);
+        String after = new BitBoard(board).toString();
+        board.unmakeMove(undo);
+
+        if (!after.equals(referee.toString())) {
+            throw new IllegalStateException(PackedMove.toString(move) + " in " + position(board, player)
+                    + " leaves\n" + after + "but the Referee has\n" + referee);
+        }
+        if (!before.equals(new BitBoard(board).toString()) || key != board.getHashKey()) {
+            throw new IllegalStateException("unmaking " + PackedMove.toString(move) + " doesn't restore "
+                    + position(board, player));
+        }
+    }
+
+    /**
+     *  Compares two sets of moves
+     * @param board the board, for the message
+     * @param player the player, for the message
+     * @param source what the second set came from
+     * @param expected the moves from Board.generateMoves, sorted
+     * @param actual the other moves, sorted
+     */
+    private static void compare(Board board, String player, String source, int[] expected, int[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(source + " gives " + moveList(actual) + " but generateMoves gives "
+                    + moveList(expected) + " in " + position(board, player));
+        }
+    }
+
+    /**
+     * @param moves some packed moves
+     * @param count the number of moves
+     * @return a sorted copy of the moves
+     */
+    private static int[] sorted(int[] moves, int count) {
+        int[] copy = Arrays.copyOf(moves, count);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * @param moves some packed moves
+     * @return the moves as text
+     */
+    private static String moveList(int[] moves) {
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < moves.length; i++) {
+            s.append(i > 0 ? ", " : "").append(PackedMove.toString(moves[i]));
+        }
+        return s.append(']').toString();
+    }
+
+    /**
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @return the position in Notation
+     */
+    private static String position(Board board, String player) {
+        return Notation.format(board, BitBoard.player(player));
+    }
+
+    /**
+     *
+     * @return the number of positions checked against the Referee
+     */
+    public long getChecked() {
+        return checked;
+    }
+
+    /**
+     *
+     * @return the number of races checked
+     */
+    public long getRaces() {
+        return races;
+    }
+
+    /**
+     *
+     * @return the number of tablebase entries checked
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     *  Check positions the tablebase covers against it
+     * @param tablebase the tablebase for the board, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     *  Counts leaves to each depth up to the given one
+     * @param args depth, then optionally a position, divide and check
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: java aiproj.slider.Perft depth [\"position\"] [divide] [check]");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        String position = START;
+        boolean divide = false;
+        boolean check = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("divide")) {
+                divide = true;
+            }
+            else if (args[i].equals("check")) {
+                check = true;
+            }
+            else {
+                position = args[i];
+            }
+        }
+
+        Board board = Notation.parseBoard(position);
+        String player = Notation.sideToMove(position) == BitBoard.H ? Tile.PLAYER_H : Tile.PLAYER_V;
+        BitBoard bits = Notation.parse(position);
+        Tablebase tablebase = check ? Tablebase.openFor(Paths.get(Tablebase.TABLEBASE_DIR), board) : null;
+        System.out.println(position);
+
+        for (int d = 1; d <= depth; d++) {
+            Perft perft = new Perft(d, check);
+            perft.setTablebase(tablebase);
+            long started = System.nanoTime();
+            long leaves = perft.count(board, player, d, 0);
+            double boardSeconds = (System.nanoTime() - started) / 1e9;
+
+            started = System.nanoTime();
+            long bitLeaves = perft.count(bits, BitBoard.player(player), d, 0);
+            double bitSeconds = (System.nanoTime() - started) / 1e9;
+
+            System.out.printf("depth %d: %d leaves, Board %.0f nps, BitBoard %.0f nps%s%n", d, leaves,
+                    leaves / boardSeconds, bitLeaves / bitSeconds,
+                    check ? ", " + perft.getChecked() + " positions checked (" + perft.getRaces()
+                            + " races, " + perft.getEntries() + " tablebase entries)" : "");
+            if (bitLeaves != leaves) {
+                System.out.println("MISMATCH: BitBoard counts " + bitLeaves + " leaves");
+                System.exit(1);
+            }
+        }
+
+        if (divide) {
+            for (String line : new Perft(depth, false).divide(board, player, depth)) {
+                System.out.println(line);
+            }
+        }
+    }
+}
@@ -10,14 +10,13 @@ package aiproj.slider;
  *
  */
 
-import java.util.ArrayList;
-
 
 public class PrincipalVariation {
 
     private Board board;
     private double value;
-    private ArrayList<Double> features;
+    private double[] features;
+    private int[] moves = new int[0];
 
     /**
      *  Construct principle variation
@@ -25,12 +24,25 @@ public class PrincipalVariation {
      * @param given_features the given features
      * @param given_value the given value
      */
-    public PrincipalVariation(Board given_board, ArrayList<Double> given_features, double given_value) {
+    public PrincipalVariation(Board given_board, double[] given_features, double given_value) {
         board = given_board;
         features = given_features;
         value = given_value;
     }
 
+    /**
+     *  Construct principle variation
+     * @param given_board the board at the end of the variation
+     * @param given_features the given features
+     * @param given_value the given value
+     * @param given_moves the packed moves of the variation (PackedMove.NONE for a pass)
+     */
+    public PrincipalVariation(Board given_board, double[] given_features, double given_value,
+                              int[] given_moves) {
+        this(given_board, given_features, given_value);
+        moves = given_moves;
+    }
+
     /**
      *
      * @return the board
@@ -49,10 +61,26 @@ public class PrincipalVariation {
 
     /**
      *
-     * @return the features, an arraylist of doubles
+     * @return the features, an array of doubles
      */
-    public ArrayList<Double> getFeatures() {
+    public double[] getFeatures() {
         return features;
     }
 
+    /**
+     *
+     * @return the moves of the variation, an array of packed moves
+     */
+    public int[] getMoves() {
+        return moves;
+    }
+
+    /**
+     *
+     * @return the first move of the variation (packed), or PackedMove.NONE for a pass
+     */
+    public int getBestMove() {
+        return moves.length == 0 ? PackedMove.NONE : moves[0];
+    }
+
 }
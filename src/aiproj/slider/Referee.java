@@ -28,28 +28,12 @@ public class Referee {
         
 
         /* * * *
-         * then, set up the board and initialise the players
+         * then, create the players
          */
-
-        // create a new board
-        Board board = new Board(options.dimension);
-
-        // set up timer and time array for profiling
-        CPUTimer timer = new CPUTimer(); // nanosecond CPU usage timer
-        long[] times = new long[]{0, 0}; // cumulative time spent by each player
-
-        // and initialise the players
         SliderPlayer[] players = new SliderPlayer[2];
         try {
-            timer.start();
             players[Player.H] = (SliderPlayer)options.playerH.newInstance();
-            players[Player.H].init(options.dimension, board.toString(), 'H');
-            times[Player.H] += timer.clock();
-
-            timer.start();
             players[Player.V] = (SliderPlayer)options.playerV.newInstance();
-            players[Player.V].init(options.dimension, board.toString(), 'V');
-            times[Player.V] += timer.clock();
         } catch (IllegalAccessException | InstantiationException e) {
             System.err.println("player instantiation error: " + e.getMessage());
             System.exit(1);
@@ -57,78 +41,84 @@ public class Referee {
         
 
         /* * * *
-         * now, play the game!
+         * now, play the game! (see GameRunner), printing every position
+         * and the result as it goes
          */
+        GameRunner runner = new GameRunner();
+        runner.addListener(new ConsoleListener(options.delay));
+        GameResult result = runner.play(players[Player.H], players[Player.V],
+                options.dimension, new java.util.Random().nextLong());
 
-        int turn = Player.H;
-        Move previousMove = null;
-        String message = null;
-
-        render(board);
-
-        // Added
-        int maxturns = 350;
-        //String[] ppieces = {"H", "V"};
-
-        // game loop
-        while (!board.finished() && maxturns > 0) {
-
-            // delay
-            sleep(options.delay);
-
-            // calculate and time move
-            timer.start();
-            players[turn].update(previousMove);
-
-            // Added
-            //System.out.printf("\nPlayer %s's turn:\n", ppieces[turn]);
-            //System.out.println("Referee's turn variable says: " + (turn==Player.H ? "horizontal" : "vertical"));
+        /* * * *
+         * finally, append the game to the record file (see GameRecordWriter),
+         * if there is one
+         */
+        if (options.recordFile != null) {
+            try (GameRecordWriter recorder = new GameRecordWriter(
+                    java.nio.file.Paths.get(options.recordFile))) {
+                recorder.write(result);
+            } catch (java.io.IOException e) {
+                System.err.println("can't record game: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
 
-            previousMove = players[turn].move();
-            times[turn] += timer.clock();
+    /**
+     * Prints the board after every move, and the result at the end of the
+     * game, with an optional delay between turns
+     */
+    static class ConsoleListener implements GameListener {
 
-            // validate and perform move
-            try {
-                board.move(previousMove, Player.pieces[turn]);
-            } catch (IllegalMoveException e) {
-                // exit game due to violation, leading to loss for players[turn]
-                message = e.getMessage();
-                break;
-            }
+        private final int delay;
 
-            // other player's turn next
-            turn = Player.other(turn);
+        public ConsoleListener(int delay) {
+            this.delay = delay;
+        }
 
+        @Override
+        public void gameStarted(String board) {
             render(board);
-            // Added
-            maxturns -= 1;
         }
-        // Added this
-        players[0].update(previousMove);
-        players[1].update(previousMove);
 
-        /* * * *
-         * game over! finally, display the results
-         */
+        @Override
+        public void moveMade(int player, Move move, String board) {
+            render(board);
+            sleep(delay);
+        }
 
-        if(board.finished()) {
-            System.out.println("winner: " + board.winner());
-            System.out.println("times:");
-            System.out.println(" horizontal ~"+ times[Player.H]/1000000 +"ms");
-            System.out.println(" vertical   ~"+ times[Player.V]/1000000 +"ms");
-        } else if (maxturns <= 0){
-            System.out.println("Maximum Moves Exceeded");
+        @Override
+        public void gameFinished(GameResult result) {
+            if (result.isFinished()) {
+                long[] times = result.getTimes();
+                System.out.println("winner: " + winner(result.getWinner()));
+                System.out.println("times:");
+                System.out.println(" horizontal ~"+ times[Player.H]/1000000 +"ms");
+                System.out.println(" vertical   ~"+ times[Player.V]/1000000 +"ms");
+            } else if (result.getIllegalMove() == null) {
+                System.out.println("Maximum Moves Exceeded");
+            }
+            else {
+                System.out.println("illegal move: "
+                        + (result.getLastPlayer()==Player.H ? "horizontal" : "vertical"));
+                System.out.println(" " + result.getIllegalMove());
+                System.out.println(" (move: " + result.getLastMove() + ")");
+            }
         }
-        else {
-            System.out.println("illegal move: "
-                    + (turn==Player.H ? "horizontal" : "vertical"));
-            System.out.println(" " + message);
-            System.out.println(" (move: " + previousMove + ")");
+
+        private static String winner(String winner) {
+            if (winner.equals(Tile.PLAYER_H)) {
+                return "horizontal!";
+            } else if (winner.equals(Tile.PLAYER_V)) {
+                return "vertical!";
+            } else {
+                return "nobody! (tie)";
+            }
         }
     }
 
     /** Helper function for rendering a board */
-    private static void render(Board board) {
+    private static void render(String board) {
         System.out.println(board);
     }
 
@@ -149,6 +139,7 @@ public class Referee {
         public final int delay;              // time in ms to delay rendering
         public final int dimension;          // dimension of board to play on
         public final Class playerH, playerV; // class names of players to play
+        public final String recordFile;      // file to append the game to, or null
 
         public Options(String[] args) {
 
@@ -164,6 +155,9 @@ public class Referee {
                 this.delay = 0; // default to zero (which will be ignored)
             }
 
+            // and an optional game record file
+            this.recordFile = args.length > 4 ? args[4] : null;
+
             // check dimension of board
             this.dimension = Integer.parseInt(args[0]);
             if (! (dimension > 3) ) {
@@ -188,36 +182,44 @@ public class Referee {
         }
 
         static void printUsageInfoAndExit() {
-            System.err.println("usage: java Referee N playerH playerV [delay]");
+            System.err.println("usage: java Referee N playerH playerV [delay] [record]");
             System.err.println("       N - dimension of board to use (N > 3)");
             System.err.println(" playerH - fully qualified name of H player");
             System.err.println(" playerV - fully qualified name of V player");
             System.err.println("   delay - (optional) ms delay between turns");
+            System.err.println("  record - (optional) file to append the game to");
             System.exit(1);
         }
     }
 
     /** Collection of game helper functions and constants */
-    private static interface Player {
+    static interface Player {
         static final int H = 0, V = 1;
         static final Piece[] pieces = new Piece[]{Piece.HSLIDER, Piece.VSLIDER};
         static int other(int player) { return 1 - player; }
         // 1 - 0 is 1, and 1 - 1 is 0, so 1 - H is V, and 1 - V is H!
     }
 
+    /** What a game needs from a board: validating moves and the result */
+    static interface Rules {
+        int size();
+        void move(Move move, Piece turn) throws IllegalMoveException;
+        boolean finished();
+        String winnerType();
+    }
+
     /**
      * Referee's (simplified) internal representation of the board,
      * handles validation and rendering
      */
-    private static class Board {
-
-        private static java.util.Random rng = new java.util.Random();
+    static class Board implements Rules {
 
         private Piece[][] grid;
         private int hsliders = 0, vsliders = 0, passes = 0;
         private final int n;
 
-        public Board(int n) {
+        /** a starting board, with blocked positions chosen by rng */
+        public Board(int n, java.util.Random rng) {
             this.n = n;
             this.grid = new Piece[n][n];
 
@@ -262,6 +264,32 @@ public class Referee {
             }
         }
 
+        /** a board in any position, such as one given to a player */
+        public Board(SliderBoard board) {
+            this.n = board.getLength();
+            this.grid = new Piece[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    String cell = board.getCellType(i, j);
+                    if (cell.equals(Tile.PLAYER_H)) {
+                        grid[i][j] = Piece.HSLIDER;
+                        hsliders++;
+                    } else if (cell.equals(Tile.PLAYER_V)) {
+                        grid[i][j] = Piece.VSLIDER;
+                        vsliders++;
+                    } else if (cell.equals(Tile.BLOCKED)) {
+                        grid[i][j] = Piece.BLOCK;
+                    } else {
+                        grid[i][j] = Piece.BLANK;
+                    }
+                }
+            }
+        }
+
+        public int size() {
+            return n;
+        }
+
         /** represent a board as text for rendering */
         private static final char[] SYMBOLS = {'+', 'B', 'H', 'V'};
         public String toString(){
@@ -387,39 +415,131 @@ public class Referee {
                 return "everybody!";
             }
         }
+
+        /** the winner's cell type, or Tile.EMPTY for a tie */
+        public String winnerType() {
+            if (hsliders == 0) {
+                return Tile.PLAYER_H;
+            } else if (vsliders == 0) {
+                return Tile.PLAYER_V;
+            } else {
+                return Tile.EMPTY;
+            }
+        }
     }
 
-    /** Enumeration of all of the possible states of a board position */
-    private static enum Piece { BLANK, BLOCK, HSLIDER, VSLIDER, }
+    /**
+     * The same rules on a BitBoard, for playing many games quickly. Each
+     * side's number of legal moves is kept up to date as moves are made, so
+     * checking a pass doesn't scan the board, and nothing is allocated per
+     * move. Rejects exactly the moves Board rejects, with the same messages,
+     * and only renders the board when asked with toString().
+     */
+    static class FastBoard implements Rules {
 
-    /** Simple exception describing a move that fails validation */
-    private static class IllegalMoveException extends Exception {
-        public IllegalMoveException(String message) {
-            super(message);
+        private final BitBoard board;
+        private final int n;
+        private final int[] mobility = new int[2];
+        private int passes = 0;
+
+        /** a board in any position, such as one given to a player */
+        public FastBoard(SliderBoard board) {
+            this.board = new BitBoard(board);
+            this.n = board.getLength();
+            countMoves();
         }
-    }
-}
 
-/** Small helper class for nanosecond CPU usage timing */
-class CPUTimer {
-    long start = 0; // nanosecond time we started timing
-    java.lang.management.ThreadMXBean thread =
-            java.lang.management.ManagementFactory.getThreadMXBean();
+        public int size() {
+            return n;
+        }
 
-    public CPUTimer() {
-        thread.setThreadCpuTimeEnabled(true);
-    }
+        /** the number of legal moves a player (Player.H or Player.V) has */
+        public int mobility(int player) {
+            return mobility[player];
+        }
+
+        public String toString() {
+            return board.toString();
+        }
 
-    /** Restart the clock to start timing again from now */
-    public void start() {
-        start = thread.getCurrentThreadCpuTime();
+        /** validate a move and change the board state, as Board does */
+        public void move(Move move, Piece turn) throws IllegalMoveException {
+            int player = turn == Piece.HSLIDER ? Player.H : Player.V;
+
+            // a pass is only legal with no moves left
+            if (move == null) {
+                if (mobility[player] > 0) {
+                    throw new IllegalMoveException("can't pass, moves remain!");
+                }
+                passes++;
+                return;
+            }
+            passes = 0;
+
+            // squares off the board hold none of the player's pieces
+            boolean onBoard = move.i >= 0 && move.i < n && move.j >= 0 && move.j < n;
+            if (!onBoard || (board.getPieces(player) & bit(move.i, move.j)) == 0) {
+                throw new IllegalMoveException("not your piece!");
+            }
+            if ((player == Player.H && move.d == Move.Direction.LEFT)
+                    || (player == Player.V && move.d == Move.Direction.DOWN)) {
+                throw new IllegalMoveException("can't move that direction!");
+            }
+
+            int toi = move.i, toj = move.j;
+            switch(move.d){
+                case UP:    toj++; break;
+                case DOWN:  toj--; break;
+                case RIGHT: toi++; break;
+                case LEFT:  toi--; break;
+            }
+            boolean exits = (player == Player.H && toi == n) || (player == Player.V && toj == n);
+            if (!exits) {
+                if (toj < 0 || toj >= n || toi < 0 || toi >= n) {
+                    throw new IllegalMoveException("can't move off the board!");
+                }
+                if ((board.getEmpty() & bit(toi, toj)) == 0) {
+                    throw new IllegalMoveException("that position is occupied!");
+                }
+            }
+
+            board.makeMove(player, PackedMove.of(move.i, move.j, move.d));
+            countMoves();
+        }
+
+        /** recount both sides' legal moves after the board changes */
+        private void countMoves() {
+            mobility[Player.H] = board.countMoves(Player.H);
+            mobility[Player.V] = board.countMoves(Player.V);
+        }
+
+        private static long bit(int i, int j) {
+            return 1L << BitBoard.square(i, j);
+        }
+
+        public boolean finished() {
+            return board.getHPieces() == 0 || board.getVPieces() == 0 || passes > 1;
+        }
+
+        /** the winner's cell type, or Tile.EMPTY for a tie */
+        public String winnerType() {
+            if (board.getHPieces() == 0) {
+                return Tile.PLAYER_H;
+            } else if (board.getVPieces() == 0) {
+                return Tile.PLAYER_V;
+            } else {
+                return Tile.EMPTY;
+            }
+        }
     }
 
-    /**
-     * Return time since started (clock() can be called multiple times per 
-     * start(), but start() should be called at least once before clock())
-     */
-    public long clock() {
-        return thread.getCurrentThreadCpuTime() - start;
+    /** Enumeration of all of the possible states of a board position */
+    static enum Piece { BLANK, BLOCK, HSLIDER, VSLIDER, }
+
+    /** Simple exception describing a move that fails validation */
+    static class IllegalMoveException extends Exception {
+        public IllegalMoveException(String message) {
+            super(message);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,487 @@
+package aiproj.slider;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Search class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Depth limited Minimax with alpha-beta pruning, written in negamax form,
+ * on a BitBoard: moves are made and unmade by flipping bits, and leaves are
+ * evaluated from popcounts of the masks.
+ * Leaves are scored by the Evaluator from the root player's point of view,
+ * and results are kept in a transposition table between searches. With a
+ * tablebase, positions with few enough pieces are scored exactly instead of
+ * being searched, and so are races, where the two sides can no longer get in
+ * each other's way (see BitBoard.raceResult).
+ *
+ * A search can be stopped part way through by a CPU time budget, or by
+ * another thread calling stop(), in which case isAborted() is true and the
+ * result must be thrown away.
+ *
+ * Given a SearchStats, the search also counts evaluations, cutoffs and
+ * table hits into it; without one, it only counts nodes.
+ *
+ * See comments.txt for details
+ *
+ */
+public class Search {
+
+    // Score for winning now; wins further away score a little less
+    public static final double WIN = 1000.0;
+    public static final int MAX_PLY = 128;
+
+    // The most plies to the end of the game that a node is scored with
+    // without searching it: a race with n - 1 tiles a side, each a whole
+    // board from leaving (see BitBoard.raceResult), or a tablebase entry
+    public static final int MAX_SOLVED_PLIES =
+            Math.max(2 * Board.MAX_SIZE * (Board.MAX_SIZE - 1), Tablebase.MAX_DISTANCE);
+
+    // Scores beyond this are wins or losses rather than evaluations
+    public static final double WIN_BOUND = WIN - MAX_PLY - MAX_SOLVED_PLIES;
+
+    // How often (in nodes) to check the clock
+    private static final int CHECK_INTERVAL = 1024;
+
+    // Most moves a position can have: three for every square
+    private static final int MAX_MOVES = 3 * Board.MAX_SIZE * Board.MAX_SIZE;
+
+    // Move generation stage before Board.FORWARD_MOVES, for the principal
+    // variation and hash moves
+    private static final int HASH_MOVES = Board.FORWARD_MOVES - 1;
+
+    private static final int NO_MOVE = PackedMove.NONE;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final Supplier<MoveOrderer> orderers;
+    private final MoveOrderer orderer;
+    private Tablebase tablebase;
+    private SearchStats stats;
+
+    // Packed moves and their order scores, for each ply
+    private final int[][] packedMoves = new int[MAX_PLY][MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY][MAX_MOVES];
+
+    private BitBoard board;
+    private int rootPlayer;
+
+    // Principal variation of this search, and of the last completed one
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private int[] previousPv = new int[0];
+
+    private CPUTimer timer;
+    private long budget;
+    private long nodes;
+    private boolean aborted;
+    private volatile boolean stopped;
+
+    /**
+     *  Construct a search, with the default move ordering
+     * @param evaluator the evaluation function
+     * @param table the transposition table
+     */
+    public Search(Evaluator evaluator, TranspositionTable table) {
+        this(evaluator, table, HeuristicMoveOrderer::new);
+    }
+
+    /**
+     *  Construct a search. Move orderers keep state while searching, so each
+     *  search, including each helper (see newHelper), gets its own.
+     * @param evaluator the evaluation function
+     * @param table the transposition table
+     * @param orderers makes the move ordering
+     */
+    public Search(Evaluator evaluator, TranspositionTable table, Supplier<MoveOrderer> orderers) {
+        this.evaluator = evaluator;
+        this.table = table;
+        this.orderers = orderers;
+        this.orderer = orderers.get();
+    }
+
+    /**
+     *  Prepare to search a position. The board is changed during the search
+     *  but is always restored before search returns.
+     * @param board the board, with its hash key set (see BitBoard.rehash)
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @param timer a started timer measuring the time used
+     * @param budget nanoseconds of CPU time allowed, measured by the timer
+     */
+    public void start(BitBoard board, int player, CPUTimer timer, long budget) {
+        start(board, player, timer, budget, new int[0]);
+    }
+
+    /**
+     *  Prepare to search a position, trying a principal variation found
+     *  earlier first, as if it came from a completed search
+     * @param board the board, with its hash key set (see BitBoard.rehash)
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @param timer a started timer measuring the time used
+     * @param budget nanoseconds of CPU time allowed, measured by the timer
+     * @param pv the principal variation, as packed moves
+     */
+    public void start(BitBoard board, int player, CPUTimer timer, long budget, int[] pv) {
+        this.board = board;
+        this.rootPlayer = player;
+        this.timer = timer;
+        this.budget = budget;
+        this.previousPv = pv;
+        this.nodes = 0;
+        this.aborted = false;
+        this.stopped = false;
+        orderer.start(board.getLength());
+    }
+
+    /**
+     *  Searches the position given to start to a fixed depth. The principal
+     *  variation of the last completed search is tried first.
+     * @param depth the depth in plies
+     * @return the score for the player to move
+     */
+    public double search(int depth) {
+        double score = negamax(depth, 0, -Double.MAX_VALUE, Double.MAX_VALUE, rootPlayer, false, true);
+        if (!aborted) {
+            previousPv = getPv();
+        }
+        return score;
+    }
+
+    /**
+     *  Negamax alpha-beta search
+     * @param depth plies left to search
+     * @param ply plies from the root
+     * @param alpha lower bound
+     * @param beta upper bound
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @param passed whether the last move was a pass
+     * @param onPv whether every move so far follows the previous principal variation
+     * @return the score for the player to move
+     */
+    private double negamax(int depth, int ply, double alpha, double beta,
+                           int player, boolean passed, boolean onPv) {
+        nodes++;
+        if (nodes % CHECK_INTERVAL == 0 && (stopped || timer.clock() > budget)) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        pvLength[ply] = ply;
+
+        int opponent = 1 - player;
+
+        // the opponent has moved all their tiles off the board
+        if (board.getPieces(opponent) == 0) {
+            return -(WIN - ply);
+        }
+
+        // few enough pieces left to know the result exactly
+        if (tablebase != null && ply > 0) {
+            int entry = tablebase.probe(board.getHPieces(), board.getVPieces(), player);
+            if (entry != 0) {
+                if (stats != null) {
+                    stats.tablebaseHit();
+                }
+                return tablebaseScore(entry, ply);
+            }
+        }
+
+        // the sides can no longer meet, so the result is known exactly;
+        // longer races than a normal game can have are left to the search,
+        // so their scores stay beyond WIN_BOUND
+        if (ply > 0) {
+            int race = board.raceResult(player);
+            if (race != BitBoard.NOT_A_RACE && Math.abs(race) <= MAX_SOLVED_PLIES) {
+                if (stats != null) {
+                    stats.raceHit();
+                }
+                return race > 0 ? WIN - (ply + race) : -(WIN - (ply - race));
+            }
+        }
+
+        if (depth == 0 || ply == MAX_PLY - 1) {
+            if (stats != null) {
+                stats.evaluation();
+            }
+            double value = evaluator.evaluate(board, rootPlayer);
+            return player == rootPlayer ? value : -value;
+        }
+
+        // look up the position in the transposition table
+        long key = board.getHashKey();
+        int hashMove = NO_MOVE;
+        long entry = table.probe(key);
+        if (stats != null) {
+            stats.tableProbe(entry != 0);
+        }
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                double score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    if (stats != null) {
+                        stats.tableCutoff();
+                    }
+                    return score;
+                }
+            }
+        }
+
+        // moves are tried in stages: the principal variation and hash moves,
+        // then forward moves, then sideways moves. A stage is only generated
+        // if the ones before it didn't cause a cutoff.
+        int pvMove = onPv && ply < previousPv.length ? previousPv[ply] : NO_MOVE;
+        int[] moves = packedMoves[ply];
+        int[] scores = orderScores[ply];
+
+        double alphaOrig = alpha;
+        double best = -Double.MAX_VALUE;
+        int bestMove = NO_MOVE;
+        int searched = 0;
+
+        stages:
+        for (int stage = HASH_MOVES; stage <= Board.SIDEWAYS_MOVES; stage++) {
+            int count = 0;
+            if (stage == HASH_MOVES) {
+                if (pvMove != NO_MOVE && board.isLegal(player, pvMove)) {
+                    moves[count++] = pvMove;
+                }
+                if (hashMove != NO_MOVE && hashMove != pvMove && board.isLegal(player, hashMove)) {
+                    moves[count++] = hashMove;
+                }
+            }
+            else {
+                count = board.generateMoves(player, stage, moves, 0);
+                for (int i = 0; i < count; i++) {
+                    scores[i] = orderer.score(moves[i], player, ply);
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                if (stage != HASH_MOVES) {
+                    // bring the best scoring move left forward, so a cutoff skips sorting the rest
+                    selectBest(moves, scores, i, count);
+                    if (moves[i] == pvMove || moves[i] == hashMove) {
+                        continue;
+                    }
+                }
+                int move = moves[i];
+                searched++;
+
+                board.makeMove(player, move);
+                double score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent, false,
+                        move == pvMove);
+                board.unmakeMove(player, move);
+
+                if (aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        updatePv(ply, move);
+                    }
+                    if (alpha >= beta) {
+                        if (stats != null) {
+                            stats.cutoff(searched - 1);
+                        }
+                        orderer.cutoff(move, player, ply, depth);
+                        break stages;
+                    }
+                }
+            }
+        }
+
+        // no legal moves: pass, and if both players pass the game is a tie
+        if (searched == 0) {
+            if (passed) {
+                return 0;
+            }
+            board.pass();
+            double score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent, true, false);
+            board.pass();
+            updatePv(ply, NO_MOVE);
+            return score;
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, depth, bound, toTable(best, ply), bestMove);
+        return best;
+    }
+
+    /**
+     *  Records a move as the start of the principal variation at ply
+     * @param ply the ply
+     * @param move the packed move (NO_MOVE for a pass)
+     */
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        for (int i = ply + 1; i < pvLength[ply + 1]; i++) {
+            pvTable[ply][i] = pvTable[ply + 1][i];
+        }
+        pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+    }
+
+    /**
+     *  Swaps the highest scoring of the moves from index onwards into index
+     * @param moves the packed moves
+     * @param scores the order scores
+     * @param index the index to fill
+     * @param count the number of moves
+     */
+    private static void selectBest(int[] moves, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves[index];
+            moves[index] = moves[best];
+            moves[best] = move;
+            int score = scores[index];
+            scores[index] = scores[best];
+            scores[best] = score;
+        }
+    }
+
+    /**
+     *  The score of a tablebase entry, with wins and losses scored the same
+     *  way the search scores them
+     * @param entry the entry
+     * @param ply the node's ply
+     * @return the score for the player to move
+     */
+    private static double tablebaseScore(int entry, int ply) {
+        switch (Tablebase.result(entry)) {
+            case Tablebase.WIN:  return WIN - (ply + Tablebase.distance(entry));
+            case Tablebase.LOSS: return -(WIN - (ply + Tablebase.distance(entry)));
+            default:             return 0;
+        }
+    }
+
+    /**
+     *  Makes win scores relative to the node rather than the root, for storing
+     * @param score the score
+     * @param ply the node's ply
+     * @return the score to store
+     */
+    private static double toTable(double score, int ply) {
+        if (score > WIN_BOUND) {
+            return score + ply;
+        }
+        if (score < -WIN_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     *  Reverses toTable
+     * @param score the stored score
+     * @param ply the node's ply
+     * @return the score relative to the root
+     */
+    private static double fromTable(double score, int ply) {
+        if (score > WIN_BOUND) {
+            return score - ply;
+        }
+        if (score < -WIN_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * @param player a player's cell type
+     * @return the other player's cell type
+     */
+    public static String other(String player) {
+        return player.equals(Tile.PLAYER_H) ? Tile.PLAYER_V : Tile.PLAYER_H;
+    }
+
+    /**
+     *
+     * @return the principal variation of the last search, as packed moves
+     * (PackedMove.NONE for passes)
+     */
+    public int[] getPv() {
+        return Arrays.copyOf(pvTable[0], pvLength[0]);
+    }
+
+    /**
+     *  Stops the search as soon as possible; safe to call from another thread
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     *  Creates another search sharing this one's evaluation function,
+     *  transposition table and tablebase, with its own move ordering of the
+     *  same kind, for a helper thread
+     * @return the new search
+     */
+    public Search newHelper() {
+        Search helper = new Search(evaluator, table, orderers);
+        helper.setTablebase(tablebase);
+        return helper;
+    }
+
+    /**
+     *  Use a tablebase for positions with few pieces left
+     * @param tablebase the tablebase for the board being searched, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     *  Count what the search does
+     * @param stats the counts to add to, or null to count only nodes
+     */
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     *
+     * @return the counts being added to, or null if only nodes are counted
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     *
+     * @return whether the last search ran out of time or was stopped
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     *
+     * @return nodes searched since start
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     *
+     * @return the evaluation function
+     */
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+}
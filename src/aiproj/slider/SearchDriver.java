@@ -0,0 +1,475 @@
+package aiproj.slider;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SearchDriver class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Iterative deepening: searches one ply deeper at a time, trying the last
+ * principal variation first, until the CPU time budget for the move runs
+ * out. Time is measured the same way as the Referee does, with a CPUTimer.
+ * The result of the deepest completed search is returned. The search runs
+ * on a copy of the player's Board's BitBoard, which is much faster to make
+ * and unmake moves on.
+ *
+ * With more than one thread, helper threads search the same position at the
+ * same time (Lazy SMP), each on its own copy of the board, and share the
+ * transposition table. Their results are only used through the table,
+ * which lets the main search go deeper in the same time. Only the main
+ * thread's CPU time counts towards the budget.
+ *
+ * While the opponent thinks, the driver can ponder: search the position the
+ * opponent's expected reply (the second move of the principal variation)
+ * would leave, on a thread of its own, filling the shared transposition
+ * table. If the opponent plays that reply, the next findMove carries on
+ * from the deepest iteration the ponder search completed; otherwise the
+ * ponder search is stopped and its result thrown away.
+ *
+ * Each completed iteration is reported to Java Flight Recorder as a
+ * SearchIterationEvent. With setStats(true), the main search also counts
+ * cutoffs, table hits and so on for each move (see SearchStats); that is
+ * off by default, leaving only the node count and the events, which cost
+ * next to nothing unless a recording is running.
+ *
+ * See comments.txt for details
+ *
+ */
+public class SearchDriver {
+
+    // A budget of CPU time that a fixed depth search never runs out of
+    public static final long UNLIMITED = Long.MAX_VALUE / 4;
+
+    private final Search search;
+    private long budget;
+    private int maxDepth;
+    private int completedDepth;
+
+    // Lazy SMP helpers, and the threads they run on
+    private Search[] helpers = new Search[0];
+    private ExecutorService pool;
+
+    // Pondering: the search and thread it runs on, and the position it is
+    // searching, then its deepest completed iteration
+    private Search ponderer;
+    private ExecutorService ponderThread;
+    private Future<?> pondering;
+    private AtomicBoolean ponderDone;
+    private int expectedReply;
+    private long ponderKey;
+    private int[] ponderPv;
+    private double ponderValue;
+    private int ponderDepth;
+
+    /**
+     *  Construct a search driver
+     * @param search the search
+     * @param budget nanoseconds of CPU time to spend on each move
+     * @param maxDepth the deepest search to try
+     */
+    public SearchDriver(Search search, long budget, int maxDepth) {
+        this.search = search;
+        this.budget = budget;
+        this.maxDepth = Math.min(maxDepth, Search.MAX_PLY - 1);
+    }
+
+    /**
+     *  Finds the best move for a player
+     * @param board the board, which is restored before returning
+     * @param player the cell type of the player to move
+     * @return the principal variation; its first move is the best move, and
+     * the board and features are those at the end of the variation
+     */
+    public PrincipalVariation findMove(Board board, String player) {
+        haltPondering();
+        BitBoard bits = bitBoard(board, player);
+        int side = BitBoard.player(player);
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        ArrayList<Future<?>> running = new ArrayList<Future<?>>(helpers.length);
+        for (int i = 0; i < helpers.length && pool != null; i++) {
+            running.add(startHelper(helpers[i], i, bits.copyBoard(), side, done));
+        }
+
+        int[] bestPv = null;
+        double bestValue = 0;
+        completedDepth = 0;
+
+        // after a ponder hit, carry on from where pondering got to
+        if (ponderPv != null && ponderKey == board.getHashKey()) {
+            bestPv = ponderPv;
+            bestValue = ponderValue;
+            completedDepth = ponderDepth;
+        }
+        ponderPv = null;
+
+        CPUTimer timer = new CPUTimer();
+        timer.start();
+        search.start(bits, side, timer, budget, bestPv != null ? bestPv : new int[0]);
+
+        SearchStats stats = search.getStats();
+        if (stats != null) {
+            stats.reset();
+        }
+
+        boolean solved = bestPv != null && Math.abs(bestValue) > Search.WIN_BOUND;
+
+        for (int depth = completedDepth + 1; depth <= maxDepth && !solved; depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            long nodesBefore = search.getNodes();
+            double value = search.search(depth);
+            if (search.isAborted()) {
+                break;
+            }
+            bestPv = search.getPv();
+            bestValue = value;
+            completedDepth = depth;
+
+            event.end();
+            if (event.shouldCommit()) {
+                report(event, depth, value, bestPv, nodesBefore, stats);
+            }
+
+            // a forced win or loss won't change with more depth, and the next
+            // search is unlikely to finish in the time that's left
+            if (Math.abs(value) > Search.WIN_BOUND || timer.clock() > budget / 2) {
+                break;
+            }
+        }
+        stopHelpers(running, done);
+
+        // out of time before the first search finished: take any legal move
+        if (bestPv == null) {
+            int[] moves = new int[2 * Board.MAX_SIZE * Board.MAX_SIZE];
+            int count = board.generateMoves(player, Board.FORWARD_MOVES, moves, 0);
+            count += board.generateMoves(player, Board.SIDEWAYS_MOVES, moves, count);
+            bestPv = new int[]{count == 0 ? PackedMove.NONE : moves[0]};
+            bestValue = search.getEvaluator().evaluate(board, player);
+        }
+        if (stats != null) {
+            stats.finish(search.getNodes(), completedDepth, timer.clock());
+        }
+        return principalVariation(board, player, bestPv, bestValue);
+    }
+
+    /**
+     *  Fills in and commits an iteration's event
+     * @param event the event, ended
+     * @param depth the iteration's depth
+     * @param value the iteration's score
+     * @param pv the iteration's principal variation
+     * @param nodesBefore nodes searched for the move before the iteration
+     * @param stats the counts for the move so far, or null if they aren't collected
+     */
+    private void report(SearchIterationEvent event, int depth, double value, int[] pv,
+                        long nodesBefore, SearchStats stats) {
+        event.depth = depth;
+        event.score = value;
+        event.bestMove = PackedMove.toString(pv.length > 0 ? pv[0] : PackedMove.NONE);
+        event.nodes = search.getNodes() - nodesBefore;
+        event.totalNodes = search.getNodes();
+        if (stats != null) {
+            event.detailed = true;
+            event.evaluations = stats.getEvaluations();
+            event.cutoffs = stats.getCutoffs();
+            event.firstMoveCutoffs = stats.cutoffs(0);
+            event.tableProbes = stats.getTableProbes();
+            event.tableHits = stats.getTableHits();
+        }
+        event.commit();
+    }
+
+    /**
+     *  Starts a helper searching on a pool thread until done is set
+     * @param helper the helper's search
+     * @param index the helper's number, used to vary the depths it searches
+     * @param board the helper's own copy of the board
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @param done set when the main search has finished
+     * @return the running helper
+     */
+    private Future<?> startHelper(Search helper, int index, BitBoard board, int player,
+                                  AtomicBoolean done) {
+        return pool.submit(() -> {
+            CPUTimer timer = new CPUTimer();
+            timer.start();
+            helper.start(board, player, timer, Long.MAX_VALUE);
+
+            // odd helpers start a ply deeper, so helpers aren't all in step
+            for (int depth = 1 + index % 2; depth <= maxDepth && !done.get(); depth++) {
+                helper.search(depth);
+                if (helper.isAborted()) {
+                    break;
+                }
+            }
+        });
+    }
+
+    /**
+     *  Stops the helpers and waits for them to finish
+     * @param running the running helpers
+     * @param done set to tell helpers that haven't started searching yet to stop
+     */
+    private void stopHelpers(ArrayList<Future<?>> running, AtomicBoolean done) {
+        done.set(true);
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+        for (Future<?> helper : running) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("helper search failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     *  Starts pondering on a thread of its own, until stopPondering. Does
+     *  nothing if the expected reply isn't legal.
+     * @param board the board after our move, which is copied
+     * @param opponent the cell type of the opponent, who is to move
+     * @param reply the opponent's expected reply as a packed move, or
+     * PackedMove.NONE for a pass
+     * @return whether pondering started
+     */
+    public boolean startPondering(Board board, String opponent, int reply) {
+        haltPondering();
+        ponderPv = null;
+        if (!isLegal(board, opponent, reply)) {
+            return false;
+        }
+        if (ponderThread == null) {
+            ponderer = search.newHelper();
+            ponderThread = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "search-ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        Board after = board.copyBoard();
+        after.applyMove(reply, opponent);
+        String turn = Search.other(opponent);
+        BitBoard position = bitBoard(after, turn);
+        int player = BitBoard.player(turn);
+        expectedReply = reply;
+        ponderKey = after.getHashKey();
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        ponderDone = done;
+        pondering = ponderThread.submit(() -> {
+            CPUTimer timer = new CPUTimer();
+            timer.start();
+            ponderer.start(position, player, timer, Long.MAX_VALUE);
+            for (int depth = 1; depth <= maxDepth && !done.get(); depth++) {
+                double value = ponderer.search(depth);
+                if (ponderer.isAborted()) {
+                    break;
+                }
+                ponderPv = ponderer.getPv();
+                ponderValue = value;
+                ponderDepth = depth;
+                if (Math.abs(value) > Search.WIN_BOUND) {
+                    break;
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     *  Copies a position's BitBoard to search
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @return the bitboard, hashed with the player to move
+     */
+    private static BitBoard bitBoard(Board board, String player) {
+        BitBoard bits = board.getBitBoard().copyBoard();
+        bits.rehash(BitBoard.player(player) == BitBoard.V);
+        return bits;
+    }
+
+    /**
+     *  Stops pondering and waits for the ponder search to finish. Its
+     *  deepest completed iteration is kept for the next findMove if the
+     *  opponent played the expected reply, and thrown away otherwise;
+     *  findMove only uses it for the position that was pondered.
+     * @param played the opponent's move as a packed move, or PackedMove.NONE
+     * for a pass
+     * @return whether pondering was running and expected that move
+     */
+    public boolean stopPondering(int played) {
+        if (pondering == null) {
+            return false;
+        }
+        haltPondering();
+        boolean hit = played == expectedReply;
+        if (!hit) {
+            ponderPv = null;
+        }
+        return hit;
+    }
+
+    /**
+     *  Stops the ponder search, if it's running, and waits for it to finish
+     */
+    private void haltPondering() {
+        if (pondering == null) {
+            return;
+        }
+        ponderDone.set(true);
+        ponderer.stop();
+        try {
+            pondering.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("ponder search failed", e.getCause());
+        }
+        pondering = null;
+    }
+
+    /**
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @param move a packed move, or PackedMove.NONE for a pass
+     * @return whether the player may make the move
+     */
+    private static boolean isLegal(Board board, String player, int move) {
+        if (move != PackedMove.NONE) {
+            return board.isLegal(move, player);
+        }
+        int[] moves = new int[2 * Board.MAX_SIZE * Board.MAX_SIZE];
+        return board.generateMoves(player, Board.FORWARD_MOVES, moves, 0) == 0
+                && board.generateMoves(player, Board.SIDEWAYS_MOVES, moves, 0) == 0;
+    }
+
+    /**
+     *
+     * @return whether a ponder search is running
+     */
+    public boolean isPondering() {
+        return pondering != null;
+    }
+
+    /**
+     *  Set the number of threads to search with. One thread searches on the
+     *  calling thread alone; more add Lazy SMP helpers.
+     * @param threads the number of threads
+     */
+    public void setThreads(int threads) {
+        close();
+        helpers = new Search[Math.max(0, threads - 1)];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = search.newHelper();
+        }
+        if (helpers.length > 0) {
+            pool = Executors.newFixedThreadPool(helpers.length, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     *
+     * @return the number of threads searching
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     *  Stops the helper threads, if there are any, and any pondering
+     */
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+        haltPondering();
+        ponderPv = null;
+        if (ponderThread != null) {
+            ponderThread.shutdownNow();
+            ponderThread = null;
+        }
+    }
+
+    /**
+     *  Plays out a principal variation to find its leaf
+     * @param board the board
+     * @param player the player at the root
+     * @param pv the packed moves of the variation
+     * @param value the value of the variation
+     * @return the principal variation
+     */
+    private static PrincipalVariation principalVariation(Board board, String player,
+                                                         int[] pv, double value) {
+        Board leaf = board.copyBoard();
+        String turn = player;
+        for (int move : pv) {
+            leaf.applyMove(move, turn);
+            turn = Search.other(turn);
+        }
+        return new PrincipalVariation(leaf, Evaluator.features(leaf, player), value, pv);
+    }
+
+    /**
+     *  Turn counting what the main search does for each move on or off
+     * @param collect whether to collect a SearchStats for each move
+     */
+    public void setStats(boolean collect) {
+        search.setStats(collect ? new SearchStats() : null);
+    }
+
+    /**
+     *
+     * @return what the main search did for the last findMove, or null if
+     * that isn't being collected
+     */
+    public SearchStats getStats() {
+        return search.getStats();
+    }
+
+    /**
+     *
+     * @return depth of the deepest search completed by the last findMove
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Set the CPU time budget per move
+     * @param budget nanoseconds of CPU time
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     *
+     * @return nanoseconds of CPU time to spend on each move
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Set the deepest search to try
+     * @param maxDepth depth in plies
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.min(maxDepth, Search.MAX_PLY - 1);
+    }
+}
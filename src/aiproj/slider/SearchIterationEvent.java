@@ -0,0 +1,76 @@
+package aiproj.slider;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * SearchIterationEvent class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * A Java Flight Recorder event for each completed iteration of iterative
+ * deepening (see SearchDriver), so a recording shows how deep each move
+ * searched, how long each depth took and how the best move changed. Record
+ * with
+ *
+ *   java -XX:StartFlightRecording=filename=slider.jfr aiproj.slider.Referee ...
+ *
+ * Events cost next to nothing unless a recording is running. The counts
+ * from a SearchStats are only filled in when the search is collecting them
+ * (detailed is true); otherwise they are 0.
+ *
+ * See comments.txt for details
+ *
+ */
+@Name("aiproj.slider.SearchIteration")
+@Label("Search Iteration")
+@Category({"Slider", "Search"})
+@Description("One completed iteration of iterative deepening")
+@StackTrace(false)
+public class SearchIterationEvent extends Event {
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Score")
+    @Description("Score for the player to move")
+    public double score;
+
+    @Label("Best Move")
+    public String bestMove;
+
+    @Label("Nodes")
+    @Description("Nodes searched in this iteration")
+    public long nodes;
+
+    @Label("Total Nodes")
+    @Description("Nodes searched for this move so far")
+    public long totalNodes;
+
+    @Label("Detailed")
+    @Description("Whether the counts below were collected")
+    public boolean detailed;
+
+    @Label("Evaluations")
+    @Description("Leaf evaluations for this move so far")
+    public long evaluations;
+
+    @Label("Cutoffs")
+    @Description("Beta cutoffs for this move so far")
+    public long cutoffs;
+
+    @Label("First Move Cutoffs")
+    @Description("Beta cutoffs caused by the first move searched, for this move so far")
+    public long firstMoveCutoffs;
+
+    @Label("Table Probes")
+    @Description("Transposition table probes for this move so far")
+    public long tableProbes;
+
+    @Label("Table Hits")
+    @Description("Transposition table probes that found their position, for this move so far")
+    public long tableHits;
+}
@@ -0,0 +1,238 @@
+package aiproj.slider;
+
+import java.util.Arrays;
+
+/**
+ * SearchStats class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Counts what a search did while finding one move: nodes, leaf
+ * evaluations, beta cutoffs and which move caused each one, transposition
+ * table, tablebase and race hits, and the depth reached. A Search only counts
+ * these when it has been given a SearchStats, so games that don't need
+ * them don't pay for them.
+ *
+ * A good move ordering causes most cutoffs with the first move searched,
+ * so cutoffs(0) / getCutoffs() near 1 means ordering is working.
+ *
+ * See comments.txt for details
+ *
+ */
+public class SearchStats {
+
+    // Cutoffs are counted by the index of the move that caused them, with
+    // the last counting every later move
+    public static final int CUTOFF_INDICES = 16;
+
+    private long nodes;
+    private long evaluations;
+    private long cutoffs;
+    private final long[] cutoffsByIndex = new long[CUTOFF_INDICES];
+    private long tableProbes;
+    private long tableHits;
+    private long tableCutoffs;
+    private long tablebaseHits;
+    private long raceHits;
+    private int depth;
+    private long time;
+
+    /**
+     *  Clears every count, before a new move
+     */
+    public void reset() {
+        nodes = 0;
+        evaluations = 0;
+        cutoffs = 0;
+        Arrays.fill(cutoffsByIndex, 0);
+        tableProbes = 0;
+        tableHits = 0;
+        tableCutoffs = 0;
+        tablebaseHits = 0;
+        raceHits = 0;
+        depth = 0;
+        time = 0;
+    }
+
+    /**
+     *  Counts a leaf evaluation
+     */
+    void evaluation() {
+        evaluations++;
+    }
+
+    /**
+     *  Counts a beta cutoff
+     * @param index the index of the move that caused it among the moves
+     * searched at its node, from 0
+     */
+    void cutoff(int index) {
+        cutoffs++;
+        cutoffsByIndex[Math.min(index, CUTOFF_INDICES - 1)]++;
+    }
+
+    /**
+     *  Counts a transposition table probe
+     * @param hit whether the position was in the table
+     */
+    void tableProbe(boolean hit) {
+        tableProbes++;
+        if (hit) {
+            tableHits++;
+        }
+    }
+
+    /**
+     *  Counts a node whose score came straight from the transposition table
+     */
+    void tableCutoff() {
+        tableCutoffs++;
+    }
+
+    /**
+     *  Counts a node scored by the tablebase
+     */
+    void tablebaseHit() {
+        tablebaseHits++;
+    }
+
+    /**
+     *  Counts a node solved as a race (see BitBoard.raceResult)
+     */
+    void raceHit() {
+        raceHits++;
+    }
+
+    /**
+     *  Records the end of a move's search
+     * @param nodes the nodes searched
+     * @param depth the deepest completed iteration
+     * @param time nanoseconds of CPU time taken
+     */
+    void finish(long nodes, int depth, long time) {
+        this.nodes = nodes;
+        this.depth = depth;
+        this.time = time;
+    }
+
+    /**
+     *
+     * @return nodes searched
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     *
+     * @return leaf positions evaluated
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     *
+     * @return beta cutoffs
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     *  Cutoffs caused by the move at an index
+     * @param index the index among the moves searched at a node, from 0;
+     * CUTOFF_INDICES - 1 counts that index and every later one
+     * @return the number of cutoffs
+     */
+    public long cutoffs(int index) {
+        return cutoffsByIndex[index];
+    }
+
+    /**
+     *
+     * @return the fraction of cutoffs caused by the first move searched
+     */
+    public double firstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) cutoffsByIndex[0] / cutoffs;
+    }
+
+    /**
+     *
+     * @return transposition table probes
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     *
+     * @return probes that found their position
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     *
+     * @return the fraction of probes that found their position
+     */
+    public double tableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    /**
+     *
+     * @return nodes scored straight from the transposition table
+     */
+    public long getTableCutoffs() {
+        return tableCutoffs;
+    }
+
+    /**
+     *
+     * @return nodes scored by the tablebase
+     */
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /**
+     *
+     * @return nodes solved as races
+     */
+    public long getRaceHits() {
+        return raceHits;
+    }
+
+    /**
+     *
+     * @return the deepest completed iteration
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     *
+     * @return nanoseconds of CPU time taken
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     *
+     * @return nodes searched per second of CPU time
+     */
+    public double nodesPerSecond() {
+        return time == 0 ? 0 : nodes * 1e9 / time;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d, %d nodes (%.0f/s), %d evaluations, %d cutoffs (%.1f%% first move), "
+                        + "table %.1f%% hits, %d table cutoffs, %d tablebase hits, %d race hits",
+                depth, nodes, nodesPerSecond(), evaluations, cutoffs, 100 * firstMoveCutoffRate(),
+                100 * tableHitRate(), tableCutoffs, tablebaseHits, raceHits);
+    }
+}
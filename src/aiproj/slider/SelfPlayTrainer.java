@@ -0,0 +1,286 @@
+package aiproj.slider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SelfPlayTrainer class for a TD Leaf Lambda player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Trains the weights with TD-Leaf(Lambda) by self-play in one JVM, instead
+ * of starting the Referee once per game (trainTD.sh). Run it with
+ *
+ *   java aiproj.slider.SelfPlayTrainer N games [threads] [depth] [seed] [weights file] [record file]
+ *
+ * Games are played by GameRunners in batches on a thread pool. Every game in a batch plays
+ * with the same snapshot of the weights, both players learn from it, and the
+ * changes from the whole batch are added to the weights once the batch is
+ * over, in the order the games were started. Each game's blocked squares and
+ * opening moves come from its own seed (the run's seed plus the game's
+ * number), and every move is searched to a fixed depth, so a run gives the
+ * same weights however many threads play it.
+ *
+ * The weights are saved to the weights file every checkpoint games and at
+ * the end. Given a record file, every game is also appended to it (see
+ * GameRecordWriter), in the order the games were started.
+ *
+ * See comments.txt for details
+ *
+ */
+public class SelfPlayTrainer {
+
+    // Defaults for the optional command line arguments
+    public static final int DEPTH = 4;
+    public static final long SEED = 1;
+    public static final int CHECKPOINT = 500;
+
+    // Games played with each snapshot of the weights
+    public static final int BATCH = 32;
+
+    // Smaller than a player's usual table, as there's a pair per thread
+    private static final int TABLE_BITS = 16;
+
+    private final int dimension;
+    private final int depth;
+    private final int randomPlies;
+    private final double[] weights;
+
+    private GameRecordWriter recorder;
+
+    private int games;
+    private int hWins;
+    private int vWins;
+    private int unfinished;
+
+    /**
+     *  Construct a trainer
+     * @param dimension the board size
+     * @param depth the depth every move is searched to
+     * @param weights the weights to train, which are changed
+     */
+    public SelfPlayTrainer(int dimension, int depth, double[] weights) {
+        this.dimension = dimension;
+        this.depth = depth;
+        this.weights = weights;
+
+        // an even number of random moves, so that H is still first to move
+        this.randomPlies = 2 * (dimension / 2);
+    }
+
+    /**
+     *  Plays games and learns from them
+     * @param count the number of games to play
+     * @param threads the number of games to play at once
+     * @param seed the seed of the first game; game i uses seed + i
+     * @param checkpoint the number of games between saving the weights
+     * @param weightsFile the file to save the weights to, or null not to save them
+     * @throws IOException if the weights can't be saved or a game can't be recorded
+     */
+    public void train(int count, int threads, long seed, int checkpoint, Path weightsFile)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        int nextCheckpoint = checkpoint;
+
+        try {
+            for (int first = 0; first < count; first += BATCH) {
+                double[] snapshot = weights.clone();
+                List<Future<TrainingGame>> batch = new ArrayList<Future<TrainingGame>>(BATCH);
+                for (int i = first; i < Math.min(count, first + BATCH); i++) {
+                    long gameSeed = seed + i;
+                    batch.add(pool.submit(() -> playGame(snapshot, gameSeed)));
+                }
+                for (Future<TrainingGame> game : batch) {
+                    record(game.get());
+                }
+
+                if (weightsFile != null && games >= nextCheckpoint) {
+                    WeightStore.write(weights, weightsFile);
+                    nextCheckpoint += checkpoint;
+                }
+                double minutes = (System.nanoTime() - started) / 6e10;
+                System.out.printf("%d games (%.0f per minute): H %d, V %d, unfinished %d%n",
+                        games, games / minutes, hWins, vWins, unfinished);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("training game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (weightsFile != null) {
+            WeightStore.write(weights, weightsFile);
+        }
+    }
+
+    /**
+     *  Plays one game of self-play with a GameRunner
+     * @param snapshot the weights both players start with, which aren't changed
+     * @param seed the game's seed
+     * @return the result, and the change to the weights the players learned
+     */
+    public TrainingGame playGame(double[] snapshot, long seed) {
+        BitBoard opening = GameRunner.opening(dimension, seed, randomPlies);
+
+        TDLeafDaveHugo h = player(snapshot);
+        TDLeafDaveHugo v = player(snapshot);
+        GameRunner runner = new GameRunner();
+        runner.setFast(true);
+        GameResult result = runner.play(h, v, opening, seed);
+        if (result.getIllegalMove() != null) {
+            throw new IllegalStateException("illegal move " + result.getLastMove() + ": "
+                    + result.getIllegalMove());
+        }
+
+        // players only learn from games that finish
+        double[] delta = new double[snapshot.length];
+        if (result.isFinished()) {
+            for (TDLeafDaveHugo player : new TDLeafDaveHugo[]{h, v}) {
+                double[] learned = player.getWeights();
+                for (int i = 0; i < delta.length; i++) {
+                    delta[i] += learned[i] - snapshot[i];
+                }
+            }
+        }
+        return new TrainingGame(result, delta);
+    }
+
+    /**
+     *  Adds a game's result to the weights and the totals, and records it
+     * @param game the game
+     * @throws IOException if the game can't be recorded
+     */
+    private void record(TrainingGame game) throws IOException {
+        GameResult result = game.getResult();
+        double[] delta = game.getDelta();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] += delta[i];
+        }
+        if (recorder != null) {
+            recorder.write(result);
+        }
+        games++;
+        if (result.getWinner() == null) {
+            unfinished++;
+        }
+        else if (result.getWinner().equals(Tile.PLAYER_H)) {
+            hWins++;
+        }
+        else if (result.getWinner().equals(Tile.PLAYER_V)) {
+            vWins++;
+        }
+    }
+
+    /**
+     *  A training player, searching to a fixed depth
+     * @param snapshot the weights to start with
+     * @return the player
+     */
+    private TDLeafDaveHugo player(double[] snapshot) {
+        TDLeafDaveHugo player = new TDLeafDaveHugo(SearchDriver.UNLIMITED, 1);
+        player.setWeights(snapshot);
+        player.setMaxDepth(depth);
+        player.setTableBits(TABLE_BITS);
+        player.setTraining(true, false);
+        return player;
+    }
+
+    /**
+     *  Records every game played from now on
+     * @param recorder the writer to append games to, or null not to record them
+     */
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     *
+     * @return the weights being trained
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     *
+     * @return the number of games played so far
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     *  Trains the weights in a weights file by self-play
+     * @param args N games [threads] [depth] [seed] [weights file] [record file]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: java aiproj.slider.SelfPlayTrainer N games "
+                    + "[threads] [depth] [seed] [weights file] [record file]");
+            System.exit(1);
+        }
+        int dimension = Integer.parseInt(args[0]);
+        int count = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : DEPTH;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : SEED;
+        Path weightsFile = Paths.get(args.length > 5 ? args[5] : TDLeafDaveHugo.WEIGHTS_FILE);
+
+        double[] weights = WeightStore.read(weightsFile);
+        SelfPlayTrainer trainer = new SelfPlayTrainer(dimension, depth, weights);
+        if (args.length > 6) {
+            try (GameRecordWriter recorder = new GameRecordWriter(Paths.get(args[6]))) {
+                trainer.setRecorder(recorder);
+                trainer.train(count, threads, seed, CHECKPOINT, weightsFile);
+            }
+        }
+        else {
+            trainer.train(count, threads, seed, CHECKPOINT, weightsFile);
+        }
+    }
+
+    /**
+     * The outcome of one training game
+     */
+    public static class TrainingGame {
+
+        private final GameResult result;
+        private final double[] delta;
+
+        /**
+         *  Construct a training game's outcome
+         * @param result the game's result
+         * @param delta the change to the weights learned from the game
+         */
+        public TrainingGame(GameResult result, double[] delta) {
+            this.result = result;
+            this.delta = delta;
+        }
+
+        /**
+         *
+         * @return the game's result
+         */
+        public GameResult getResult() {
+            return result;
+        }
+
+        /**
+         *
+         * @return the change to the weights learned from the game
+         */
+        public double[] getDelta() {
+            return delta;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package aiproj.slider;
+
+import java.util.ArrayList;
+
+/**
+ * SliderBoard interface for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * The operations shared by the tile based Board and the bitboard based
+ * BitBoard, so that either representation can be used by the player
+ *
+ * See comments.txt for details
+ *
+ */
+public interface SliderBoard {
+
+    /**
+     *
+     * @return length of the board
+     */
+    public int getLength();
+
+    /**
+     *  Get the cell type at position x, y
+     * @param x x position
+     * @param y y position
+     * @return the cell type (see Tile)
+     */
+    public String getCellType(int x, int y);
+
+    /**
+     *  Returns all available moves for the given player cell_type
+     * @param cell_type the player's cell type
+     * @return an ArrayList of legal moves
+     */
+    public ArrayList<Move> getAllMoves(String cell_type);
+}
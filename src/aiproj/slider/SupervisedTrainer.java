@@ -0,0 +1,444 @@
+package aiproj.slider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SupervisedTrainer class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Fits the weights offline to recorded games (see GameRecordReader), rather
+ * than a game at a time as TD-Leaf(Lambda) does. Run it with
+ *
+ *   java aiproj.slider.SupervisedTrainer weights.txt epochs depth games.rec...
+ *
+ * Every position a player moved from becomes a sample: the features of the
+ * leaf of a search to the given depth from that position, or with depth 0
+ * the features just after the player's move, and the game's result for the
+ * player (1 for a win, -1 for a loss, 0 for a tie). Unfinished games are
+ * left out.
+ *
+ * The weights then minimise the squared error between each sample's value,
+ * tanh(SCALE * weights . features) as in Evaluator, and its result, by
+ * mini-batch gradient descent. The samples are kept in flat arrays and each
+ * batch is split into slices of SLICE samples whose gradients are summed on
+ * a thread pool, then added together in order, so a run gives the same
+ * weights however many threads it uses.
+ *
+ * See comments.txt for details
+ *
+ */
+public class SupervisedTrainer {
+
+    // Defaults for training
+    public static final double LEARNING_RATE = 200.0;
+    public static final int BATCH = 4096;
+    public static final long SEED = 1;
+
+    // Samples in each piece of work given to a thread
+    public static final int SLICE = 512;
+
+    private static final int TABLE_BITS = 16;
+
+    private static final int F = Evaluator.NUM_FEATURES;
+
+    private final double[] weights;
+    private final double learningRate;
+    private final int batch;
+    private final Random rng;
+
+    /**
+     *  Construct a trainer
+     * @param weights the weights to train, which are changed
+     * @param learningRate the size of each step
+     * @param batch the number of samples in each step
+     * @param seed the seed for the order of the samples
+     */
+    public SupervisedTrainer(double[] weights, double learningRate, int batch, long seed) {
+        this.weights = weights;
+        this.learningRate = learningRate;
+        this.batch = batch;
+        this.rng = new Random(seed);
+    }
+
+    /**
+     *  Trains the weights on every sample once per epoch
+     * @param samples the samples, which are shuffled
+     * @param epochs the number of passes over the samples
+     * @param threads the number of threads to compute gradients on
+     */
+    public void train(Samples samples, int epochs, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int epoch = 1; epoch <= epochs; epoch++) {
+                samples.shuffle(rng);
+                for (int first = 0; first < samples.size(); first += batch) {
+                    int end = Math.min(samples.size(), first + batch);
+                    double[] gradient = gradient(samples, first, end, pool);
+                    for (int i = 0; i < F; i++) {
+                        weights[i] -= learningRate * gradient[i] / (end - first);
+                    }
+                }
+                System.out.printf("epoch %d: error %.5f%n", epoch, error(samples, pool));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     *  The gradient of the squared error summed over some samples
+     * @param samples the samples
+     * @param first the first sample
+     * @param end one past the last sample
+     * @param pool the threads to share the slices between
+     * @return the gradient with respect to each weight
+     */
+    private double[] gradient(Samples samples, int first, int end, ExecutorService pool) {
+        double[] snapshot = weights.clone();
+        List<Future<double[]>> slices = new ArrayList<Future<double[]>>();
+        for (int from = first; from < end; from += SLICE) {
+            int start = from;
+            int stop = Math.min(end, from + SLICE);
+            slices.add(pool.submit(() -> gradient(snapshot, samples, start, stop)));
+        }
+
+        double[] gradient = new double[F];
+        for (double[] slice : results(slices)) {
+            for (int i = 0; i < F; i++) {
+                gradient[i] += slice[i];
+            }
+        }
+        return gradient;
+    }
+
+    /**
+     *  The gradient of the squared error summed over one slice of samples
+     * @param weights the weights
+     * @param samples the samples
+     * @param start the first sample
+     * @param stop one past the last sample
+     * @return the gradient with respect to each weight
+     */
+    private static double[] gradient(double[] weights, Samples samples, int start, int stop) {
+        double[] features = samples.getFeatures();
+        double[] targets = samples.getTargets();
+        double[] gradient = new double[F];
+        for (int s = start; s < stop; s++) {
+            int offset = s * F;
+            double sum = 0;
+            for (int i = 0; i < F; i++) {
+                sum += weights[i] * features[offset + i];
+            }
+            double value = Math.tanh(Evaluator.SCALE * sum);
+
+            // d/dw of (value - target)^2
+            double scale = 2 * (value - targets[s]) * Evaluator.SCALE * (1 - value * value);
+            for (int i = 0; i < F; i++) {
+                gradient[i] += scale * features[offset + i];
+            }
+        }
+        return gradient;
+    }
+
+    /**
+     *  The mean squared error over all the samples
+     * @param samples the samples
+     * @param pool the threads to share the slices between
+     * @return the error
+     */
+    public double error(Samples samples, ExecutorService pool) {
+        double[] snapshot = weights.clone();
+        List<Future<double[]>> slices = new ArrayList<Future<double[]>>();
+        for (int from = 0; from < samples.size(); from += SLICE) {
+            int start = from;
+            int stop = Math.min(samples.size(), from + SLICE);
+            slices.add(pool.submit(() -> new double[]{error(snapshot, samples, start, stop)}));
+        }
+
+        double error = 0;
+        for (double[] slice : results(slices)) {
+            error += slice[0];
+        }
+        return samples.size() == 0 ? 0 : error / samples.size();
+    }
+
+    /**
+     *  The squared error summed over one slice of samples
+     * @param weights the weights
+     * @param samples the samples
+     * @param start the first sample
+     * @param stop one past the last sample
+     * @return the error
+     */
+    private static double error(double[] weights, Samples samples, int start, int stop) {
+        double[] features = samples.getFeatures();
+        double[] targets = samples.getTargets();
+        double error = 0;
+        for (int s = start; s < stop; s++) {
+            int offset = s * F;
+            double sum = 0;
+            for (int i = 0; i < F; i++) {
+                sum += weights[i] * features[offset + i];
+            }
+            double difference = Math.tanh(Evaluator.SCALE * sum) - targets[s];
+            error += difference * difference;
+        }
+        return error;
+    }
+
+    /**
+     *  Waits for every piece of work, in order
+     * @param work the work
+     * @return the results, in order
+     */
+    private static List<double[]> results(List<Future<double[]>> work) {
+        List<double[]> results = new ArrayList<double[]>(work.size());
+        try {
+            for (Future<double[]> future : work) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("training interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("training failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     *  Reads the samples from game record files
+     * @param files the game record files
+     * @param depth the depth to search each position to, or 0 for no search
+     * @param weights the weights to search with
+     * @param threads the number of games to search at once
+     * @return the samples, in the order of the games
+     * @throws IOException if a file can't be read
+     */
+    public static Samples read(List<Path> files, int depth, double[] weights, int threads)
+            throws IOException {
+        Samples samples = new Samples();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Path file : files) {
+                try (GameRecordReader reader = new GameRecordReader(file)) {
+                    List<Future<Samples>> games = new ArrayList<Future<Samples>>();
+                    for (GameRecord game = reader.next(); game != null; game = reader.next()) {
+                        if (game.getResult() == GameRecord.UNFINISHED) {
+                            continue;
+                        }
+                        GameRecord finished = game;
+                        games.add(pool.submit(() -> depth == 0 ? samples(finished)
+                                : samples(finished, weights, depth)));
+
+                        // keep a bounded number of games in memory
+                        if (games.size() >= 64 * threads) {
+                            addAll(samples, games);
+                        }
+                    }
+                    addAll(samples, games);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return samples;
+    }
+
+    /**
+     *  Adds the samples of some games, in order, and forgets the games
+     * @param samples the samples to add to
+     * @param games the games' samples
+     */
+    private static void addAll(Samples samples, List<Future<Samples>> games) {
+        try {
+            for (Future<Samples> game : games) {
+                samples.addAll(game.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("reading samples interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("reading samples failed", e.getCause());
+        }
+        games.clear();
+    }
+
+    /**
+     *  The samples of a game, from the positions just after each move
+     * @param game the game
+     * @return the samples
+     */
+    private static Samples samples(GameRecord game) {
+        Samples samples = new Samples();
+        for (String player : new String[]{Tile.PLAYER_H, Tile.PLAYER_V}) {
+            double result = game.resultFor(player);
+            for (double[] features : game.features(player)) {
+                samples.add(features, result);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     *  The samples of a game, from the leaf of a search of each position
+     *  a move was made from
+     * @param game the game
+     * @param weights the weights to search with
+     * @param depth the depth to search to
+     * @return the samples
+     */
+    private static Samples samples(GameRecord game, double[] weights, int depth) {
+        // a fresh search for each game, so the leaves don't depend on which
+        // games a thread searched before, and one for each player, since the
+        // search scores leaves for the player at the root and the evaluation
+        // isn't symmetric
+        SearchDriver[] drivers = new SearchDriver[2];
+        for (int player = BitBoard.H; player <= BitBoard.V; player++) {
+            drivers[player] = new SearchDriver(new Search(new Evaluator(weights),
+                    new TranspositionTable(TABLE_BITS)), SearchDriver.UNLIMITED, depth);
+        }
+        Samples samples = new Samples();
+        int[] turn = {0};
+        game.replay((board, player) -> {
+            int t = turn[0]++;
+            if (t < game.getTurns() && game.getMove(t) != PackedMove.NONE) {
+                PrincipalVariation pv = drivers[BitBoard.player(player)].findMove(board, player);
+                samples.add(pv.getFeatures(), game.resultFor(player));
+            }
+        });
+        return samples;
+    }
+
+    /**
+     *
+     * @return the weights being trained
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     *  Trains the weights in a weights file on recorded games
+     * @param args weights file, epochs, depth, then the game record files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: java aiproj.slider.SupervisedTrainer weights.txt epochs depth games.rec...");
+            System.exit(1);
+        }
+        Path weightsFile = Paths.get(args[0]);
+        int epochs = Integer.parseInt(args[1]);
+        int depth = Integer.parseInt(args[2]);
+        List<Path> files = new ArrayList<Path>();
+        for (int i = 3; i < args.length; i++) {
+            files.add(Paths.get(args[i]));
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        double[] weights = WeightStore.read(weightsFile);
+        long started = System.nanoTime();
+        Samples samples = read(files, depth, weights, threads);
+        System.out.printf("%d samples in %.1fs%n", samples.size(), (System.nanoTime() - started) / 1e9);
+
+        SupervisedTrainer trainer = new SupervisedTrainer(weights, LEARNING_RATE, BATCH, SEED);
+        trainer.train(samples, epochs, threads);
+        WeightStore.write(weights, weightsFile);
+    }
+
+    /**
+     * Training samples: the features of each position in one flat array, a
+     * row of NUM_FEATURES per sample, and the result each should score
+     */
+    public static class Samples {
+
+        private double[] features = new double[1024 * F];
+        private double[] targets = new double[1024];
+        private int size;
+
+        /**
+         *  Adds a sample
+         * @param sample the features of the position
+         * @param target the result for the player
+         */
+        public void add(double[] sample, double target) {
+            reserve(1);
+            System.arraycopy(sample, 0, features, size * F, F);
+            targets[size++] = target;
+        }
+
+        /**
+         *  Adds every sample of another set
+         * @param other the samples to add
+         */
+        public void addAll(Samples other) {
+            reserve(other.size);
+            System.arraycopy(other.features, 0, features, size * F, other.size * F);
+            System.arraycopy(other.targets, 0, targets, size, other.size);
+            size += other.size;
+        }
+
+        /**
+         *  Makes room for more samples
+         * @param count the number of samples to make room for
+         */
+        private void reserve(int count) {
+            if (size + count > targets.length) {
+                int capacity = Math.max(2 * targets.length, size + count);
+                targets = Arrays.copyOf(targets, capacity);
+                features = Arrays.copyOf(features, capacity * F);
+            }
+        }
+
+        /**
+         *  Puts the samples in a random order
+         * @param rng the random number generator
+         */
+        public void shuffle(Random rng) {
+            double[] row = new double[F];
+            for (int s = size - 1; s > 0; s--) {
+                int other = rng.nextInt(s + 1);
+                System.arraycopy(features, s * F, row, 0, F);
+                System.arraycopy(features, other * F, features, s * F, F);
+                System.arraycopy(row, 0, features, other * F, F);
+                double target = targets[s];
+                targets[s] = targets[other];
+                targets[other] = target;
+            }
+        }
+
+        /**
+         *
+         * @return the number of samples
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         *
+         * @return the features, a row of NUM_FEATURES per sample
+         */
+        double[] getFeatures() {
+            return features;
+        }
+
+        /**
+         *
+         * @return the result each sample should score
+         */
+        double[] getTargets() {
+            return targets;
+        }
+    }
+}
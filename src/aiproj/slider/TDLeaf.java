@@ -0,0 +1,105 @@
+package aiproj.slider;
+
+import java.util.List;
+
+/**
+ * TDLeaf class for a TD Leaf Lambda player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * The TD-Leaf(Lambda) weight update (Baxter, Tridgell and Weaver, 1999).
+ * After a game, each move's principal variation leaf value r(x_t) is
+ * compared with the next one, d_t = r(x_t+1) - r(x_t), with the game's
+ * result standing in for the value after the last move. Each weight then
+ * moves by
+ *
+ *   learningRate * sum_t dr(x_t)/dw * sum_j>=t lambda^(j-t) * d_j
+ *
+ * where r is tanh(SCALE * weights . features), as in Evaluator.
+ *
+ * See comments.txt for details
+ *
+ */
+public class TDLeaf {
+
+    private final double learningRate;
+    private final double lambda;
+
+    /**
+     *  Construct a TD-Leaf(Lambda) update
+     * @param learningRate the learning rate
+     * @param lambda how much later temporal differences count towards earlier moves
+     */
+    public TDLeaf(double learningRate, double lambda) {
+        this.learningRate = learningRate;
+        this.lambda = lambda;
+    }
+
+    /**
+     *  Computes the change to the weights from one game
+     * @param weights the weights the game was played with
+     * @param history the principal variation of each of the player's moves, in order
+     * @param result 1 if the player won, -1 if they lost, 0 for a tie
+     * @return the change to add to each weight
+     */
+    public double[] delta(double[] weights, List<PrincipalVariation> history, double result) {
+        int moves = history.size();
+        double[] delta = new double[weights.length];
+        if (moves == 0) {
+            return delta;
+        }
+
+        // leaf values, then temporal differences
+        double[] values = new double[moves];
+        for (int t = 0; t < moves; t++) {
+            values[t] = Evaluator.value(weights, history.get(t).getFeatures());
+        }
+        double[] differences = new double[moves];
+        for (int t = 0; t < moves; t++) {
+            double next = t + 1 < moves ? values[t + 1] : result;
+            differences[t] = next - values[t];
+        }
+
+        // working backwards, the lambda discounted sum of later differences
+        double discounted = 0;
+        for (int t = moves - 1; t >= 0; t--) {
+            discounted = differences[t] + lambda * discounted;
+
+            // derivative of tanh(SCALE * w.f) with respect to each weight
+            double slope = Evaluator.SCALE * (1 - values[t] * values[t]);
+            double[] features = history.get(t).getFeatures();
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] += learningRate * slope * features[i] * discounted;
+            }
+        }
+        return delta;
+    }
+
+    /**
+     *  Applies the change from one game to the weights
+     * @param weights the weights, which are changed
+     * @param history the principal variation of each of the player's moves, in order
+     * @param result 1 if the player won, -1 if they lost, 0 for a tie
+     */
+    public void update(double[] weights, List<PrincipalVariation> history, double result) {
+        double[] delta = delta(weights, history, result);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] += delta[i];
+        }
+    }
+
+    /**
+     *
+     * @return the learning rate
+     */
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    /**
+     *
+     * @return lambda
+     */
+    public double getLambda() {
+        return lambda;
+    }
+}
@@ -0,0 +1,331 @@
+package aiproj.slider;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * TD Leaf Lambda player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Plays with Minimax and alpha-beta pruning (see Search), deepened one ply
+ * at a time until the CPU time budget for the move is used up (see
+ * SearchDriver), and an evaluation function using the weights in
+ * weights.txt (see Evaluator).
+ *
+ * Opening moves come from the opening book in book.bin, when there is one
+ * (see OpeningBook), and positions with few pieces left are looked up in
+ * the tablebase for the board in tablebases/, when there is one (see
+ * Tablebase).
+ *
+ * With pondering on, the player keeps searching on a thread of its own
+ * between returning a move and hearing the opponent's reply, on the reply it
+ * expects (see SearchDriver). That is off by default: the Referee only
+ * counts the CPU time of its own thread, and the extra thread competes with
+ * the opponent for the machine.
+ *
+ * When training, the principal variation of every move is kept, and the
+ * weights are updated with TD-Leaf(Lambda) once the game is over (see
+ * TDLeaf). Saving the updated weights to weights.txt is turned on separately.
+ *
+ * See comments.txt for details
+ *
+ */
+public class TDLeafDaveHugo implements SliderPlayer {
+
+    public static final String WEIGHTS_FILE = "weights.txt";
+
+    // Default CPU time to spend on each move, in nanoseconds
+    public static final long MOVE_TIME = 200000000L;
+    public static final int MAX_DEPTH = 64;
+
+    // Default number of search threads; 1 searches on the Referee's thread only
+    public static final int THREADS = 1;
+
+    // Training defaults
+    public static final boolean TRAIN = false;
+    public static final boolean UPDATE_WEIGHTS = false;
+    public static final double LEARNING_RATE = 1.0;
+    public static final double LAMBDA = 0.9;
+
+    // Whether to count cutoffs, table hits and so on for each move (see SearchStats)
+    public static final boolean STATS = false;
+
+    // Whether to search on the opponent's time
+    public static final boolean PONDER = false;
+
+    // log2 of the number of transposition table entries
+    private static final int TABLE_BITS = 20;
+
+    private final long moveTime;
+    private final int threads;
+    private int maxDepth = MAX_DEPTH;
+    private int tableBits = TABLE_BITS;
+    private double[] initialWeights;
+    private boolean train = TRAIN;
+    private boolean updateWeights = UPDATE_WEIGHTS;
+    private boolean stats = STATS;
+    private boolean ponder = PONDER;
+
+    private Board board;
+    private String player;
+    private String opponent;
+    private SearchDriver driver;
+    private OpeningBook book;
+    private PrincipalVariation lastPv;
+    private int movesMade;
+
+    private double[] weights;
+    private ArrayList<PrincipalVariation> history = new ArrayList<PrincipalVariation>();
+    private int passes;
+    private boolean finished;
+
+    /**
+     *  Construct a player using the default time per move
+     */
+    public TDLeafDaveHugo() {
+        this(MOVE_TIME);
+    }
+
+    /**
+     *  Construct a player
+     * @param moveTime nanoseconds of CPU time to spend on each move
+     */
+    public TDLeafDaveHugo(long moveTime) {
+        this(moveTime, THREADS);
+    }
+
+    /**
+     *  Construct a player
+     * @param moveTime nanoseconds of CPU time to spend on each move
+     * @param threads the number of threads to search with
+     */
+    public TDLeafDaveHugo(long moveTime, int threads) {
+        this.moveTime = moveTime;
+        this.threads = threads;
+    }
+
+    @Override
+    public void init(int dimension, String board, char player) {
+        this.board = Input.readBoard(dimension, board);
+        this.player = String.valueOf(player);
+        this.opponent = Search.other(this.player);
+        this.movesMade = 0;
+        this.passes = 0;
+        this.finished = false;
+        this.history = new ArrayList<PrincipalVariation>();
+
+        if (initialWeights != null) {
+            this.weights = initialWeights.clone();
+        }
+        else {
+            this.weights = Input.readWeightFile(WEIGHTS_FILE);
+        }
+        Search search = new Search(new Evaluator(weights), new TranspositionTable(tableBits));
+        search.setTablebase(Tablebase.openFor(Paths.get(Tablebase.TABLEBASE_DIR), this.board));
+        if (driver != null) {
+            driver.close();
+        }
+        this.driver = new SearchDriver(search, moveTime, maxDepth);
+        driver.setThreads(threads);
+        driver.setStats(stats);
+
+        // training explores from the opening instead of repeating the book
+        this.book = train ? null : OpeningBook.openDefault();
+    }
+
+    @Override
+    public void update(Move move) {
+        driver.stopPondering(move == null ? PackedMove.NONE : PackedMove.fromMove(move));
+
+        if (move == null) {
+            // H is told about a null move before the first move of the game
+            if (player.equals(Tile.PLAYER_V) || movesMade > 0) {
+                board.applyMove(PackedMove.NONE, opponent);
+                passes++;
+                checkFinished();
+            }
+            return;
+        }
+
+        // the Referee also passes each player the final move of the game,
+        // which may be our own
+        if (board.getCellType(move.i, move.j).equals(opponent)) {
+            board.applyMove(PackedMove.fromMove(move), opponent);
+            passes = 0;
+            checkFinished();
+        }
+    }
+
+    @Override
+    public Move move() {
+        int best = bookMove();
+        if (best == PackedMove.NONE) {
+            lastPv = driver.findMove(board, player);
+            best = lastPv.getBestMove();
+            if (train) {
+                history.add(lastPv);
+            }
+        }
+        else {
+            lastPv = null;
+        }
+        board.applyMove(best, player);
+        movesMade++;
+
+        passes = best == PackedMove.NONE ? passes + 1 : 0;
+        checkFinished();
+
+        if (ponder && !finished && lastPv != null && lastPv.getMoves().length > 1) {
+            driver.startPondering(board, opponent, lastPv.getMoves()[1]);
+        }
+
+        // the only place a Move object is needed
+        return PackedMove.toMove(best);
+    }
+
+    /**
+     *  The opening book's move for the current position
+     * @return the packed move, or PackedMove.NONE if there's no book or the
+     * position isn't in it
+     */
+    private int bookMove() {
+        if (book == null) {
+            return PackedMove.NONE;
+        }
+        int move = book.probe(board.getHashKey());
+        if (move != PackedMove.NONE && !board.isLegal(move, player)) {
+            return PackedMove.NONE;
+        }
+        return move;
+    }
+
+    /**
+     *  Ends the game once either player has no tiles left, or both have
+     *  passed, and learns from it when training
+     */
+    private void checkFinished() {
+        if (finished) {
+            return;
+        }
+
+        double result;
+        if (board.getPlayerTiles(player).isEmpty()) {
+            result = 1;
+        }
+        else if (board.getPlayerTiles(opponent).isEmpty()) {
+            result = -1;
+        }
+        else if (passes > 1) {
+            result = 0;
+        }
+        else {
+            return;
+        }
+        finished = true;
+        driver.close();
+
+        if (train) {
+            new TDLeaf(LEARNING_RATE, LAMBDA).update(weights, history, result);
+            if (updateWeights) {
+                Input.updateWeightFile(weights, WEIGHTS_FILE);
+            }
+        }
+    }
+
+    /**
+     *  Turn training on or off
+     * @param train whether to learn from each game with TD-Leaf(Lambda)
+     * @param updateWeights whether to save the learned weights to weights.txt
+     */
+    public void setTraining(boolean train, boolean updateWeights) {
+        this.train = train;
+        this.updateWeights = updateWeights;
+    }
+
+    /**
+     *  Play with a copy of these weights instead of reading weights.txt.
+     *  Takes effect at the next init.
+     * @param weights the weights, or null to read weights.txt
+     */
+    public void setWeights(double[] weights) {
+        this.initialWeights = weights;
+    }
+
+    /**
+     *  Limit the depth searched. With a CPU time per move too large to run
+     *  out, every move is searched to exactly this depth, which makes games
+     *  repeatable. Takes effect at the next init.
+     * @param maxDepth the deepest search to try
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     *  Set the size of the transposition table. Takes effect at the next init.
+     * @param tableBits log2 of the number of entries
+     */
+    public void setTableBits(int tableBits) {
+        this.tableBits = tableBits;
+    }
+
+    /**
+     *  Turn counting what each move's search does on or off. Takes effect at
+     *  the next init.
+     * @param stats whether to collect a SearchStats for each move
+     */
+    public void setStats(boolean stats) {
+        this.stats = stats;
+    }
+
+    /**
+     *  Turn searching on the opponent's time on or off. Takes effect from
+     *  the next move.
+     * @param ponder whether to ponder
+     */
+    public void setPondering(boolean ponder) {
+        this.ponder = ponder;
+    }
+
+    /**
+     *
+     * @return the weights being played with
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     *
+     * @return the principal variation of each move made so far, when training
+     */
+    public ArrayList<PrincipalVariation> getHistory() {
+        return history;
+    }
+
+    /**
+     *
+     * @return the principal variation behind the last move made, or null if
+     * it came from the opening book
+     */
+    public PrincipalVariation getLastPv() {
+        return lastPv;
+    }
+
+    /**
+     *
+     * @return what the search did for the last move made, or null if it
+     * came from the opening book or stats aren't being collected
+     */
+    public SearchStats getLastStats() {
+        return lastPv == null ? null : driver.getStats();
+    }
+
+    /**
+     *
+     * @return the player's board
+     */
+    public Board getBoard() {
+        return board;
+    }
+}
@@ -0,0 +1,306 @@
+package aiproj.slider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Tablebase class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * The exact result of every position with a few pieces on each side, for
+ * one board size and arrangement of blocked squares, solved ahead of time
+ * by TablebaseGenerator. Search looks positions up here instead of
+ * searching them once both sides are down to maxPieces.
+ *
+ * Each position is one byte: the result for the player to move (WIN, LOSS
+ * or DRAW) in the top two bits, and the number of plies until the game ends
+ * in the other six, capped at MAX_DISTANCE. A position's index is built from
+ * the ranks of its H and V squares as combinations (the combinatorial number
+ * system, with square y * n + x), grouped by the number of pieces of each
+ * side, then the player to move.
+ *
+ * Files are a header (MAGIC, VERSION, board size, maxPieces, blocked squares)
+ * followed by the entries, and are memory-mapped.
+ *
+ * See comments.txt for details
+ *
+ */
+public class Tablebase {
+
+    public static final String TABLEBASE_DIR = "tablebases";
+
+    public static final int MAGIC = 0x534C5442;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+
+    // Results, for the player to move; 0 means the position isn't in the table
+    public static final int WIN = 1, LOSS = 2, DRAW = 3;
+    public static final int MAX_DISTANCE = 63;
+
+    private final int length;
+    private final int maxPieces;
+    private final long blocked;
+    private final ByteBuffer entries;
+
+    // binomial[s][c] is the number of ways to choose c of s squares
+    private final long[][] binomial;
+
+    // Index of the first position with h H pieces and v V pieces
+    private final long[][] offsets;
+    private final long size;
+
+    /**
+     *  Construct a tablebase
+     * @param length the board size
+     * @param blocked mask of blocked squares (see BitBoard)
+     * @param maxPieces the most pieces of each side the table covers
+     * @param entries one byte per position, or null to only compute indices
+     */
+    Tablebase(int length, long blocked, int maxPieces, ByteBuffer entries) {
+        this.length = length;
+        this.blocked = blocked;
+        this.maxPieces = maxPieces;
+        this.entries = entries;
+
+        int squares = length * length;
+        binomial = new long[squares + 1][maxPieces + 1];
+        for (int s = 0; s <= squares; s++) {
+            binomial[s][0] = 1;
+            for (int c = 1; c <= maxPieces; c++) {
+                binomial[s][c] = s == 0 ? 0 : binomial[s - 1][c - 1] + binomial[s - 1][c];
+            }
+        }
+
+        offsets = new long[maxPieces + 1][maxPieces + 1];
+        long offset = 0;
+        for (int h = 1; h <= maxPieces; h++) {
+            for (int v = 1; v <= maxPieces; v++) {
+                offsets[h][v] = offset;
+                offset += 2 * binomial[squares][h] * binomial[squares][v];
+            }
+        }
+        size = offset;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("tablebase too large: " + size + " positions");
+        }
+    }
+
+    /**
+     *  Memory-maps a tablebase file
+     * @param file the file
+     * @return the tablebase
+     * @throws IOException if the file can't be read or isn't a tablebase
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.limit() < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a tablebase");
+            }
+            map.position(HEADER_SIZE);
+            Tablebase tablebase = new Tablebase(map.getInt(8), map.getLong(16), map.getInt(12),
+                    map.slice());
+            if (map.limit() - HEADER_SIZE < tablebase.size()) {
+                throw new IOException(file + " is truncated");
+            }
+            return tablebase;
+        }
+    }
+
+    /**
+     *  Opens the tablebase for a board's size and blocked squares, if there is one
+     * @param dir the directory of tablebase files
+     * @param board the board
+     * @return the tablebase, or null if there isn't a usable one
+     */
+    public static Tablebase openFor(Path dir, SliderBoard board) {
+        Path file = dir.resolve(fileName(board.getLength(), new BitBoard(board).getBlocked()));
+        try {
+            return file.toFile().isFile() ? open(file) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     *  The name of the file for a board size and blocked squares
+     * @param length the board size
+     * @param blocked mask of blocked squares
+     * @return the file name
+     */
+    public static String fileName(int length, long blocked) {
+        return length + "-" + Long.toHexString(blocked) + ".tb";
+    }
+
+    /**
+     *  Whether the table has positions with these numbers of pieces
+     * @param hPieces the number of H pieces
+     * @param vPieces the number of V pieces
+     * @return true if it does
+     */
+    public boolean covers(int hPieces, int vPieces) {
+        return hPieces >= 1 && vPieces >= 1 && hPieces <= maxPieces && vPieces <= maxPieces;
+    }
+
+    /**
+     *  The index of a position, which must be covered
+     * @param hPieces mask of H pieces
+     * @param vPieces mask of V pieces
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @return the index
+     */
+    public int index(long hPieces, long vPieces, int player) {
+        int h = Long.bitCount(hPieces);
+        int v = Long.bitCount(vPieces);
+        long squares = binomial[length * length][v];
+        return (int) (offsets[h][v] + 2 * (rank(hPieces) * squares + rank(vPieces)) + player);
+    }
+
+    /**
+     *  Looks up a position
+     * @param hPieces mask of H pieces
+     * @param vPieces mask of V pieces
+     * @param player the player to move (BitBoard.H or BitBoard.V)
+     * @return the entry, or 0 if the position isn't covered
+     */
+    public int probe(long hPieces, long vPieces, int player) {
+        if (!covers(Long.bitCount(hPieces), Long.bitCount(vPieces))) {
+            return 0;
+        }
+        return entries.get(index(hPieces, vPieces, player)) & 0xFF;
+    }
+
+    /**
+     *  Looks up a board's position
+     * @param board the board
+     * @param player the cell type of the player to move
+     * @return the entry, or 0 if the position isn't covered
+     */
+    public int probe(Board board, String player) {
+        ArrayList<Tile> hTiles = board.getHTiles();
+        ArrayList<Tile> vTiles = board.getVTiles();
+        if (!covers(hTiles.size(), vTiles.size())) {
+            return 0;
+        }
+        return entries.get(index(mask(hTiles), mask(vTiles), BitBoard.player(player))) & 0xFF;
+    }
+
+    /**
+     * @param entry a table entry
+     * @return WIN, LOSS or DRAW for the player to move, or 0 if there was no entry
+     */
+    public static int result(int entry) {
+        return entry >>> 6;
+    }
+
+    /**
+     * @param entry a table entry
+     * @return plies until the game ends, up to MAX_DISTANCE
+     */
+    public static int distance(int entry) {
+        return entry & MAX_DISTANCE;
+    }
+
+    /**
+     *  Packs a result into an entry
+     * @param result WIN, LOSS or DRAW
+     * @param distance plies until the game ends
+     * @return the entry
+     */
+    public static byte entry(int result, int distance) {
+        return (byte) (result << 6 | Math.min(distance, MAX_DISTANCE));
+    }
+
+    /**
+     *  The rank of a set of squares among all sets of the same size
+     * @param pieces mask of squares (see BitBoard)
+     * @return the rank
+     */
+    long rank(long pieces) {
+        long rank = 0;
+        int i = 1;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            rank += binomial[BitBoard.squareY(square) * length + BitBoard.squareX(square)][i++];
+            pieces &= pieces - 1;
+        }
+        return rank;
+    }
+
+    /**
+     *  Mask of the squares of some tiles
+     * @param tiles the tiles
+     * @return the mask
+     */
+    private static long mask(ArrayList<Tile> tiles) {
+        long mask = 0;
+        for (int i = 0; i < tiles.size(); i++) {
+            Tile tile = tiles.get(i);
+            mask |= 1L << BitBoard.square(tile.getX(), tile.getY());
+        }
+        return mask;
+    }
+
+    /**
+     * @param squares the number of squares to choose from
+     * @param count the number to choose
+     * @return the number of ways of choosing
+     */
+    long binomial(int squares, int count) {
+        return binomial[squares][count];
+    }
+
+    /**
+     * @param hPieces the number of H pieces
+     * @param vPieces the number of V pieces
+     * @return the index of the first position with these numbers of pieces
+     */
+    long offset(int hPieces, int vPieces) {
+        return offsets[hPieces][vPieces];
+    }
+
+    /**
+     *
+     * @return the number of positions, including impossible ones
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return length of the board
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     *
+     * @return mask of blocked squares
+     */
+    public long getBlocked() {
+        return blocked;
+    }
+
+    /**
+     *
+     * @return the most pieces of each side the table covers
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     *
+     * @return the entries, one byte per position
+     */
+    ByteBuffer getEntries() {
+        return entries;
+    }
+}
@@ -0,0 +1,295 @@
+package aiproj.slider;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * TablebaseGenerator class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Solves every position with up to maxPieces pieces a side (see Tablebase)
+ * by retrograde analysis. Run it with
+ *
+ *   java aiproj.slider.TablebaseGenerator dir maxPieces N...
+ *
+ * to write a tablebase for every arrangement of blocked squares the Referee
+ * can choose on each board size. Two pieces a side takes a few MB per table
+ * on a 7x7 board; three a side is only practical on 5x5.
+ *
+ * Positions are solved in order of the number of pieces, because moving a
+ * piece off the board leads to a position with fewer. Within each group,
+ * pass i finds the positions won or lost in exactly i plies: won if a move
+ * leads to a position lost for the opponent in under i plies, and lost if
+ * every move leads to a position won for the opponent in under i plies.
+ * Positions never solved can go round in circles forever, so are draws, as
+ * are positions where neither side can move.
+ *
+ * See comments.txt for details
+ *
+ */
+public class TablebaseGenerator {
+
+    // Result of a position that hasn't been solved yet
+    private static final byte UNSOLVED = 4;
+
+    private final Tablebase tablebase;
+    private final int length;
+    private final long blocked;
+    private final int maxPieces;
+
+    // Working results and distances of every position
+    private final byte[] results;
+    private final short[] distances;
+
+    // Masks of every set of squares of each size, by rank
+    private final long[][] combinations;
+
+    private final BitBoard board;
+    private final int[] moves = new int[3 * Board.MAX_SIZE * Board.MAX_SIZE];
+    private int longest;
+
+    /**
+     *  Construct a generator
+     * @param length the board size
+     * @param blocked mask of blocked squares (see BitBoard)
+     * @param maxPieces the most pieces of each side to solve
+     */
+    private TablebaseGenerator(int length, long blocked, int maxPieces) {
+        this.length = length;
+        this.blocked = blocked;
+        this.maxPieces = maxPieces;
+        this.tablebase = new Tablebase(length, blocked, maxPieces, null);
+        this.results = new byte[(int) tablebase.size()];
+        this.distances = new short[results.length];
+        this.board = new BitBoard(length, 0, 0, blocked);
+
+        combinations = new long[maxPieces + 1][];
+        for (int count = 1; count <= maxPieces; count++) {
+            combinations[count] = new long[(int) tablebase.binomial(length * length, count)];
+            addCombinations(count, 0, 0, 0);
+        }
+    }
+
+    /**
+     *  Solves every position with up to maxPieces pieces a side
+     * @param length the board size
+     * @param blocked mask of blocked squares (see BitBoard)
+     * @param maxPieces the most pieces of each side to solve
+     * @return the tablebase
+     */
+    public static Tablebase generate(int length, long blocked, int maxPieces) {
+        return new TablebaseGenerator(length, blocked, maxPieces).solve();
+    }
+
+    /**
+     *  Solves each group of positions, fewest pieces first
+     * @return the tablebase
+     */
+    private Tablebase solve() {
+        for (int total = 2; total <= 2 * maxPieces; total++) {
+            for (int h = Math.max(1, total - maxPieces); h <= Math.min(maxPieces, total - 1); h++) {
+                solve(h, total - h);
+            }
+        }
+
+        byte[] entries = new byte[results.length];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = results[i] == 0 ? 0 : Tablebase.entry(results[i], distances[i]);
+        }
+        return new Tablebase(length, blocked, maxPieces, ByteBuffer.wrap(entries));
+    }
+
+    /**
+     *  Solves the positions with h H pieces and v V pieces
+     * @param h the number of H pieces
+     * @param v the number of V pieces
+     */
+    private void solve(int h, int v) {
+        long[] hSets = combinations[h];
+        long[] vSets = combinations[v];
+        int first = (int) tablebase.offset(h, v);
+        int end = first + 2 * hSets.length * vSets.length;
+
+        // positions that can't happen stay 0; neither side moving is a tie
+        for (int index = first; index < end; index++) {
+            long hPieces = hSets[(index - first) / 2 / vSets.length];
+            long vPieces = vSets[(index - first) / 2 % vSets.length];
+            if ((hPieces & vPieces) != 0 || ((hPieces | vPieces) & blocked) != 0) {
+                continue;
+            }
+            board.setPieces(hPieces, vPieces);
+            results[index] = board.hasMoves(BitBoard.H) || board.hasMoves(BitBoard.V)
+                    ? UNSOLVED : Tablebase.DRAW;
+        }
+
+        // positions with fewer pieces can be up to longest plies from the end
+        int longestBefore = longest;
+        for (int pass = 1; ; pass++) {
+            boolean solved = false;
+            for (int index = first; index < end; index++) {
+                if (results[index] == UNSOLVED) {
+                    int player = (index - first) % 2;
+                    long hPieces = hSets[(index - first) / 2 / vSets.length];
+                    long vPieces = vSets[(index - first) / 2 % vSets.length];
+                    solved |= solve(index, hPieces, vPieces, player, pass);
+                }
+            }
+            if (!solved && pass > longestBefore + 1) {
+                break;
+            }
+        }
+
+        for (int index = first; index < end; index++) {
+            if (results[index] == UNSOLVED) {
+                results[index] = Tablebase.DRAW;
+            }
+        }
+    }
+
+    /**
+     *  Tries to solve a position in a pass
+     * @param index the position's index
+     * @param hPieces mask of H pieces
+     * @param vPieces mask of V pieces
+     * @param player the player to move
+     * @param pass the pass, which is the distance of anything it solves
+     * @return true if the position was solved
+     */
+    private boolean solve(int index, long hPieces, long vPieces, int player, int pass) {
+        board.setPieces(hPieces, vPieces);
+        int count = board.generateMoves(player, moves, 0);
+        int opponent = 1 - player;
+
+        // no moves: pass, to the same position with the opponent to move
+        if (count == 0) {
+            int child = tablebase.index(hPieces, vPieces, opponent);
+            return settle(index, results[child], distances[child], pass, true);
+        }
+
+        boolean allWon = true;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(player, moves[i]);
+            long h = board.getHPieces();
+            long v = board.getVPieces();
+            board.unmakeMove(player, moves[i]);
+
+            // the last piece off the board wins straight away
+            if ((player == BitBoard.H ? h : v) == 0) {
+                return settle(index, Tablebase.LOSS, 0, pass, false);
+            }
+            int child = tablebase.index(h, v, opponent);
+            if (settle(index, results[child], distances[child], pass, false)) {
+                return true;
+            }
+            allWon &= results[child] == Tablebase.WIN && distances[child] < pass;
+        }
+        if (allWon) {
+            return record(index, Tablebase.LOSS, pass);
+        }
+        return false;
+    }
+
+    /**
+     *  Solves a position from one of its moves, if that move decides it
+     * @param index the position's index
+     * @param result the result after the move, for the opponent
+     * @param distance the distance after the move
+     * @param pass the current pass
+     * @param only whether this is the only move
+     * @return true if the position was solved
+     */
+    private boolean settle(int index, int result, int distance, int pass, boolean only) {
+        if (distance >= pass) {
+            return false;
+        }
+        if (result == Tablebase.LOSS) {
+            return record(index, Tablebase.WIN, pass);
+        }
+        if (only && result == Tablebase.WIN) {
+            return record(index, Tablebase.LOSS, pass);
+        }
+        return false;
+    }
+
+    /**
+     *  Records a solved position
+     * @param index the position's index
+     * @param result the result
+     * @param distance plies until the game ends
+     * @return true
+     */
+    private boolean record(int index, int result, int distance) {
+        results[index] = (byte) result;
+        distances[index] = (short) distance;
+        longest = Math.max(longest, distance);
+        return true;
+    }
+
+    /**
+     *  Fills in the masks of every set of squares of one size
+     * @param count the size of the sets
+     * @param from the first square that can be added
+     * @param chosen the number of squares chosen so far
+     * @param mask the squares chosen so far
+     */
+    private void addCombinations(int count, int from, int chosen, long mask) {
+        if (chosen == count) {
+            combinations[count][(int) tablebase.rank(mask)] = mask;
+            return;
+        }
+        for (int square = from; square < length * length; square++) {
+            long bit = 1L << BitBoard.square(square % length, square / length);
+            addCombinations(count, square + 1, chosen + 1, mask | bit);
+        }
+    }
+
+    /**
+     *  Writes a tablebase to a file
+     * @param tablebase the tablebase
+     * @param file the file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Tablebase tablebase, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(tablebase.getLength());
+            out.writeInt(tablebase.getMaxPieces());
+            out.writeLong(tablebase.getBlocked());
+            ByteBuffer entries = tablebase.getEntries().duplicate();
+            entries.clear();
+            byte[] bytes = new byte[entries.remaining()];
+            entries.get(bytes);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     *  Writes tablebases for every starting board of some sizes
+     * @param args directory, most pieces a side, then the board sizes
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: java aiproj.slider.TablebaseGenerator dir maxPieces N...");
+            System.exit(1);
+        }
+        Path dir = Paths.get(args[0]);
+        int maxPieces = Integer.parseInt(args[1]);
+        Files.createDirectories(dir);
+
+        for (int i = 2; i < args.length; i++) {
+            int n = Integer.parseInt(args[i]);
+            for (long blocked : OpeningBookBuilder.layouts(n)) {
+                Tablebase tablebase = generate(n, blocked, maxPieces);
+                write(tablebase, dir.resolve(Tablebase.fileName(n, blocked)));
+            }
+            System.out.println("N = " + n + ": " + OpeningBookBuilder.layouts(n).size() + " tablebases");
+        }
+    }
+}
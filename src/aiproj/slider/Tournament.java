@@ -0,0 +1,189 @@
+package aiproj.slider;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Tournament class for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Plays two players against each other to find out which is stronger, for
+ * example the same player with two sets of weights. Run it with
+ *
+ *   java aiproj.slider.Tournament N games weightsA weightsB [threads] [depth] [seed]
+ *
+ * Games are played in pairs on a thread pool. Both games of a pair start
+ * from the same board (see GameRunner.opening), with the players swapping
+ * sides, so neither gains from a lucky layout or from moving first. After
+ * every round of pairs the score is checked with an SPRT (see MatchScore),
+ * and the tournament stops as soon as it is clear whether player A is
+ * stronger. Games that don't finish count as draws, and an illegal move
+ * loses.
+ *
+ * See comments.txt for details
+ *
+ */
+public class Tournament {
+
+    // SPRT hypotheses: A is no stronger (ELO0) or ELO1 Elo stronger
+    public static final double ELO0 = 0;
+    public static final double ELO1 = 20;
+    public static final double ALPHA = 0.05;
+    public static final double BETA = 0.05;
+
+    // Defaults for the optional command line arguments
+    public static final int DEPTH = 4;
+    public static final long SEED = 1;
+
+    // Table size for fixed depth players, which don't need a large one
+    private static final int TABLE_BITS = 16;
+
+    private final int dimension;
+    private final Supplier<SliderPlayer> playerA;
+    private final Supplier<SliderPlayer> playerB;
+    private final int openingPlies;
+
+    private final MatchScore score = new MatchScore();
+
+    /**
+     *  Construct a tournament
+     * @param dimension the board size
+     * @param playerA creates player A, once per game
+     * @param playerB creates player B, once per game
+     */
+    public Tournament(int dimension, Supplier<SliderPlayer> playerA, Supplier<SliderPlayer> playerB) {
+        this.dimension = dimension;
+        this.playerA = playerA;
+        this.playerB = playerB;
+        this.openingPlies = 2 * (dimension / 2);
+    }
+
+    /**
+     *  Plays until the SPRT decides or the games run out
+     * @param games the most games to play
+     * @param threads the number of games to play at once
+     * @param seed the seed of the first pair of games; pair i uses seed + i
+     * @return A's score against B
+     */
+    public MatchScore play(int games, int threads, long seed) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        int pairs = (games + 1) / 2;
+        int roundSize = Math.max(1, (threads + 1) / 2);
+
+        try {
+            for (int first = 0; first < pairs; first += roundSize) {
+                List<Future<Double>> round = new ArrayList<Future<Double>>(2 * roundSize);
+                for (int i = first; i < Math.min(pairs, first + roundSize); i++) {
+                    long pairSeed = seed + i;
+                    round.add(pool.submit(() -> playGame(pairSeed, true)));
+                    round.add(pool.submit(() -> playGame(pairSeed, false)));
+                }
+                for (Future<Double> game : round) {
+                    score.add(game.get());
+                }
+
+                System.out.printf("%d games: %s, LLR %.2f%n",
+                        score.getGames(), score, score.llr(ELO0, ELO1));
+                if (score.sprt(ELO0, ELO1, ALPHA, BETA) != 0) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("tournament game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return score;
+    }
+
+    /**
+     *  Plays one game of a pair
+     * @param seed the pair's seed
+     * @param aIsH whether player A plays H
+     * @return A's score: 1 for a win, 0.5 for a draw, 0 for a loss
+     */
+    public double playGame(long seed, boolean aIsH) {
+        SliderPlayer a = playerA.get();
+        SliderPlayer b = playerB.get();
+        BitBoard start = GameRunner.opening(dimension, seed, openingPlies);
+        GameRunner runner = new GameRunner();
+        runner.setFast(true);
+        GameResult result = aIsH ? runner.play(a, b, start, seed) : runner.play(b, a, start, seed);
+
+        String aType = aIsH ? Tile.PLAYER_H : Tile.PLAYER_V;
+        if (result.getIllegalMove() != null) {
+            boolean aMoved = (result.getLastPlayer() == BitBoard.H) == aIsH;
+            return aMoved ? 0 : 1;
+        }
+        if (!result.isFinished() || result.getWinner().equals(Tile.EMPTY)) {
+            return 0.5;
+        }
+        return result.getWinner().equals(aType) ? 1 : 0;
+    }
+
+    /**
+     *
+     * @return A's score against B so far
+     */
+    public MatchScore getScore() {
+        return score;
+    }
+
+    /**
+     *  Creates players for a tournament: TDLeafDaveHugo with a set of weights,
+     *  searching to a fixed depth, or for the usual CPU time with a depth of 0
+     * @param weights the weights
+     * @param depth the depth every move is searched to, or 0
+     * @return creates a new player each time it's called
+     */
+    public static Supplier<SliderPlayer> player(double[] weights, int depth) {
+        return () -> {
+            TDLeafDaveHugo player = depth > 0
+                    ? new TDLeafDaveHugo(Long.MAX_VALUE / 4, 1)
+                    : new TDLeafDaveHugo();
+            player.setWeights(weights);
+            if (depth > 0) {
+                player.setMaxDepth(depth);
+                player.setTableBits(TABLE_BITS);
+            }
+            return player;
+        };
+    }
+
+    /**
+     *  Plays the weights in two weights files against each other
+     * @param args N games weightsA weightsB [threads] [depth] [seed]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: java aiproj.slider.Tournament N games weightsA weightsB "
+                    + "[threads] [depth] [seed]");
+            System.exit(1);
+        }
+        int dimension = Integer.parseInt(args[0]);
+        int games = Integer.parseInt(args[1]);
+        double[] weightsA = WeightStore.read(Paths.get(args[2]));
+        double[] weightsB = WeightStore.read(Paths.get(args[3]));
+        int threads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 5 ? Integer.parseInt(args[5]) : DEPTH;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : SEED;
+
+        Tournament tournament = new Tournament(dimension, player(weightsA, depth), player(weightsB, depth));
+        MatchScore score = tournament.play(games, threads, seed);
+
+        int decision = score.sprt(ELO0, ELO1, ALPHA, BETA);
+        System.out.println("A vs B: " + score);
+        System.out.println(decision > 0 ? "SPRT: A is stronger"
+                : decision < 0 ? "SPRT: A is not stronger" : "SPRT: undecided");
+    }
+}
@@ -0,0 +1,124 @@
+package aiproj.slider;
+
+/**
+ * TranspositionTable class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Fixed size hash table of search results, keyed by Zobrist key. Each entry
+ * is packed into a single long so that the table is just two arrays:
+ *
+ *   bits  0-31  score (float)
+ *   bits 32-47  best move (packed, see PackedMove), NO_MOVE if none
+ *   bits 48-55  depth searched
+ *   bits 56-57  bound type (EXACT, LOWER or UPPER)
+ *   bit  58     set for every stored entry, so 0 means a miss
+ *
+ * The table can be shared between search threads without locks: each slot
+ * stores key ^ entry rather than the key, so an entry torn by two threads
+ * writing the same slot at once fails the key check and reads as a miss.
+ *
+ * See comments.txt for details
+ *
+ */
+public class TranspositionTable {
+
+    // Bound types
+    public static final int EXACT = 0, LOWER = 1, UPPER = 2;
+
+    // Stored in place of a best move when there isn't one
+    public static final int NO_MOVE = PackedMove.NONE;
+
+    private static final long VALID = 1L << 58;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     *  Construct a transposition table
+     * @param sizeBits log2 of the number of entries
+     */
+    public TranspositionTable(int sizeBits) {
+        keys = new long[1 << sizeBits];
+        entries = new long[1 << sizeBits];
+        mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     *  Looks up a position
+     * @param key the position's Zobrist key
+     * @return the packed entry, or 0 if the position isn't stored
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = entries[index];
+        if ((keys[index] ^ entry) == key) {
+            return entry;
+        }
+        return 0;
+    }
+
+    /**
+     *  Stores a search result, replacing whatever was in its slot unless the
+     *  slot holds a deeper result for the same position
+     * @param key the position's Zobrist key
+     * @param depth the depth searched
+     * @param bound the bound type of the score
+     * @param score the score
+     * @param move the best move (packed), or NO_MOVE
+     */
+    public void store(long key, int depth, int bound, double score, int move) {
+        int index = (int) key & mask;
+        long old = entries[index];
+        if ((keys[index] ^ old) == key && old != 0 && depth(old) > depth) {
+            return;
+        }
+        long entry = VALID
+                | ((long) bound << 56)
+                | ((long) Math.min(depth, 255) << 48)
+                | ((long) (move & NO_MOVE) << 32)
+                | (Float.floatToRawIntBits((float) score) & 0xFFFFFFFFL);
+        keys[index] = key ^ entry;
+        entries[index] = entry;
+    }
+
+    /**
+     *  Empties the table
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(entries, 0);
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the entry's score
+     */
+    public static double score(long entry) {
+        return Float.intBitsToFloat((int) entry);
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the entry's best move, or NO_MOVE
+     */
+    public static int move(long entry) {
+        return (int) (entry >>> 32) & NO_MOVE;
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the depth the entry was searched to
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 48) & 0xFF;
+    }
+
+    /**
+     * @param entry a packed entry
+     * @return the entry's bound type
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 56) & 3;
+    }
+}
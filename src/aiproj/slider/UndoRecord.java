@@ -0,0 +1,75 @@
+package aiproj.slider;
+
+/**
+ * UndoRecord class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Remembers what Board.makeMove changed, so that Board.unmakeMove can put
+ * the board back exactly as it was. Each board keeps a stack of records,
+ * one per move made, and reuses a record once its move has been unmade, so
+ * making a move allocates nothing.
+ *
+ * See comments.txt for details
+ *
+ */
+public class UndoRecord {
+
+    // Where the record is in the board's stack of records
+    final int slot;
+
+    // The packed move that was made (PackedMove.NONE for a pass) and who made it
+    int move;
+    String player;
+
+    // The tile the piece left, and the tile it arrived on (null if it left the board)
+    Tile from;
+    Tile to;
+
+    // Where the piece was in the player's tile list
+    int index;
+
+    /**
+     *  Construct an empty undo record
+     * @param slot where the record is in the board's stack of records
+     */
+    UndoRecord(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     *  Fills in the record for a move
+     * @param move the packed move (PackedMove.NONE for a pass)
+     * @param player the player's cell type
+     * @param from the tile the piece moved from
+     * @param to the tile the piece moved to, or null if it left the board
+     * @param index index of the piece in the player's tile list
+     * @return the record
+     */
+    UndoRecord set(int move, String player, Tile from, Tile to, int index) {
+        this.move = move;
+        this.player = player;
+        this.from = from;
+        this.to = to;
+        this.index = index;
+        return this;
+    }
+
+    /**
+     *
+     * @return the move that was made, or null for a pass
+     */
+    public Move getMove() {
+        if (move == PackedMove.NONE) {
+            return null;
+        }
+        return PackedMove.toMove(move);
+    }
+
+    /**
+     *
+     * @return the cell type of the player who moved
+     */
+    public String getPlayer() {
+        return player;
+    }
+}
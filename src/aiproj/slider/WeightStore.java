@@ -0,0 +1,219 @@
+package aiproj.slider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * WeightStore class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Reads and writes weight files in two formats:
+ *
+ *   text    the weights separated by spaces, as in weights.txt
+ *   binary  MAGIC, VERSION and the number of weights as ints, then the
+ *           weights as 8 byte doubles, all big-endian
+ *
+ * read() tells the formats apart by the magic number, and write() picks
+ * binary for file names ending in .bin. Files are read through NIO, and
+ * memory-mapped once they're larger than MAP_THRESHOLD. Writes go to a
+ * temporary file in the same directory, which is then renamed over the old
+ * file, so a crash part way through never leaves a half written file.
+ * Problems are reported as IOExceptions.
+ *
+ * See comments.txt for details
+ *
+ */
+public final class WeightStore {
+
+    public static final int MAGIC = 0x534C5754;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 12;
+    public static final String BINARY_SUFFIX = ".bin";
+
+    // Files larger than this are memory-mapped rather than read
+    public static final long MAP_THRESHOLD = 1 << 16;
+
+    private WeightStore() {
+    }
+
+    /**
+     *  Reads a weight file in either format
+     * @param file the weight file
+     * @return the weights
+     * @throws IOException if the file can't be read or isn't a weight file
+     */
+    public static double[] read(Path file) throws IOException {
+        ByteBuffer contents = contents(file);
+        if (contents.remaining() >= HEADER_SIZE && contents.getInt(0) == MAGIC) {
+            return readBinary(file, contents);
+        }
+        return readText(file, contents);
+    }
+
+    /**
+     *  Writes a weight file, in binary format if its name ends in BINARY_SUFFIX
+     *  and in text format otherwise
+     * @param weights the weights
+     * @param file the weight file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(double[] weights, Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(BINARY_SUFFIX)) {
+            writeBinary(weights, file);
+        }
+        else {
+            writeText(weights, file);
+        }
+    }
+
+    /**
+     *  Writes a weight file in text format, the format of weights.txt
+     * @param weights the weights
+     * @param file the weight file
+     * @throws IOException if the file can't be written
+     */
+    public static void writeText(double[] weights, Path file) throws IOException {
+        StringBuilder text = new StringBuilder(24 * weights.length);
+        for (double weight : weights) {
+            text.append(weight).append(' ');
+        }
+        replace(file, ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     *  Writes a weight file in binary format
+     * @param weights the weights
+     * @param file the weight file
+     * @throws IOException if the file can't be written
+     */
+    public static void writeBinary(double[] weights, Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 * weights.length);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(weights.length);
+        buffer.asDoubleBuffer().put(weights);
+        buffer.rewind();
+        replace(file, buffer);
+    }
+
+    /**
+     *  Reads a whole file, mapping it if it's large
+     * @param file the file
+     * @return the file's contents
+     * @throws IOException if the file can't be read
+     */
+    private static ByteBuffer contents(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large for a weight file");
+            }
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     *  Reads binary weights
+     * @param file the file, for error messages
+     * @param contents the file's contents
+     * @return the weights
+     * @throws IOException if the file isn't a binary weight file
+     */
+    private static double[] readBinary(Path file, ByteBuffer contents) throws IOException {
+        if (contents.getInt(4) != VERSION) {
+            throw new IOException(file + ": unsupported weight file version " + contents.getInt(4));
+        }
+        int count = contents.getInt(8);
+        if (count < 0 || HEADER_SIZE + 8L * count > contents.remaining()) {
+            throw new IOException(file + " is truncated");
+        }
+        double[] weights = new double[count];
+        contents.position(HEADER_SIZE);
+        contents.asDoubleBuffer().get(weights);
+        return weights;
+    }
+
+    /**
+     *  Reads text weights, a token at a time straight from the file's bytes
+     * @param file the file, for error messages
+     * @param contents the file's contents
+     * @return the weights
+     * @throws IOException if a weight isn't a number
+     */
+    private static double[] readText(Path file, ByteBuffer contents) throws IOException {
+        double[] weights = new double[Evaluator.NUM_FEATURES];
+        int count = 0;
+        byte[] token = new byte[64];
+        int end = contents.limit();
+
+        int i = contents.position();
+        while (i < end) {
+            // skip whitespace, then take everything up to the next
+            int length = 0;
+            while (i < end && contents.get(i) <= ' ') {
+                i++;
+            }
+            while (i < end && contents.get(i) > ' ') {
+                if (length == token.length) {
+                    throw new IOException(file + ": weight " + (count + 1) + " is too long");
+                }
+                token[length++] = contents.get(i++);
+            }
+            if (length == 0) {
+                break;
+            }
+
+            if (count == weights.length) {
+                weights = Arrays.copyOf(weights, 2 * weights.length);
+            }
+            String text = new String(token, 0, length, StandardCharsets.US_ASCII);
+            try {
+                weights[count++] = Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ": weight " + count + " is not a number: " + text);
+            }
+        }
+        return Arrays.copyOf(weights, count);
+    }
+
+    /**
+     *  Replaces a file's contents all at once, through a temporary file
+     * @param file the file
+     * @param contents the new contents
+     * @throws IOException if the file can't be written
+     */
+    private static void replace(Path file, ByteBuffer contents) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package aiproj.slider;
+
+import java.util.Random;
+
+/**
+ * Zobrist class for a player for the game "Slider"
+ * For Artificial Intelligence at the University of Melbourne
+ *
+ * Random keys used to hash board positions. A position's key is the XOR of
+ * the keys of its board size, its blocked squares, each piece on its square,
+ * and SIDE when it is V's turn to move. The keys come from a fixed seed so
+ * hashes stay the same from run to run.
+ *
+ * See comments.txt for details
+ *
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5EED5L;
+
+    // Keys for pieces, indexed by player (BitBoard.H or BitBoard.V) and square
+    private static final long[][] PIECES = new long[2][64];
+    private static final long[] BLOCKED = new long[64];
+    private static final long[] SIZES = new long[Board.MAX_SIZE + 1];
+
+    // Key for V being the player to move
+    public static final long SIDE;
+
+    static {
+        Random rng = new Random(SEED);
+        for (int square = 0; square < 64; square++) {
+            PIECES[BitBoard.H][square] = rng.nextLong();
+            PIECES[BitBoard.V][square] = rng.nextLong();
+            BLOCKED[square] = rng.nextLong();
+        }
+        for (int i = 0; i < SIZES.length; i++) {
+            SIZES[i] = rng.nextLong();
+        }
+        SIDE = rng.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param player the player (BitBoard.H or BitBoard.V)
+     * @param square the square index (see BitBoard.square)
+     * @return the key for the player's piece on the square
+     */
+    public static long piece(int player, int square) {
+        return PIECES[player][square];
+    }
+
+    /**
+     * @param square the square index (see BitBoard.square)
+     * @return the key for a blocked square
+     */
+    public static long blocked(int square) {
+        return BLOCKED[square];
+    }
+
+    /**
+     * @param N the board size
+     * @return the key for the board size
+     */
+    public static long size(int N) {
+        return SIZES[N];
+    }
+
+    /**
+     *  Hashes a position from scratch
+     * @param board the board
+     * @param vToMove whether it is V's turn to move
+     * @return the key
+     */
+    public static long hash(SliderBoard board, boolean vToMove) {
+        int N = board.getLength();
+        long key = size(N);
+        for (int y = 0; y < N; y++) {
+            for (int x = 0; x < N; x++) {
+                String cell = board.getCellType(x, y);
+                int square = BitBoard.square(x, y);
+                if (cell.equals(Tile.PLAYER_H)) {
+                    key ^= piece(BitBoard.H, square);
+                }
+                else if (cell.equals(Tile.PLAYER_V)) {
+                    key ^= piece(BitBoard.V, square);
+                }
+                else if (cell.equals(Tile.BLOCKED)) {
+                    key ^= blocked(square);
+                }
+            }
+        }
+        if (vToMove) {
+            key ^= SIDE;
+        }
+        return key;
+    }
+}